@@ -0,0 +1,127 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.JpashopApplication;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 매 trial마다 새 H2 메모리 DB를 띄우고 데이터를 넣은 뒤, 조회는 readOnly 트랜잭션 안에서 실행한다. (OSIV처럼 지연 로딩 가능)
+ */
+public class BenchmarkContext implements AutoCloseable {
+    private final ConfigurableApplicationContext context;
+    private final TransactionTemplate readOnlyTx;
+    private final TransactionTemplate writeTx;
+    private final EntityManager em;
+    private final Statistics statistics;
+
+    private BenchmarkContext(ConfigurableApplicationContext context) {
+        this.context = context;
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        this.readOnlyTx = new TransactionTemplate(transactionManager);
+        this.readOnlyTx.setReadOnly(true);
+        this.writeTx = new TransactionTemplate(transactionManager);
+        this.em = context.getBean(EntityManager.class);
+        this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+    }
+
+    public static BenchmarkContext start() {
+        // command line 인자로 넘겨야 application.yml보다 우선순위가 높다.
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(JpashopApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "--spring.jpa.hibernate.ddl-auto=create",
+                        "--spring.jpa.properties.hibernate.generate_statistics=true", // 쿼리 수 측정
+                        "--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                        "--spring.main.banner-mode=off",
+                        "--decorator.datasource.p6spy.enable-logging=false",
+                        "--logging.level.root=warn",
+                        "--logging.level.sql=warn",
+                        "--logging.level.org.hibernate.SQL=warn");
+        return new BenchmarkContext(context);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * 회원 members명, 상품 items개, 주문 orders개(주문마다 상품 itemsPerOrder개)를 넣는다.
+     */
+    public void seed(int members, int items, int orders, int itemsPerOrder) {
+        List<Long> memberIds = new ArrayList<>();
+        List<Long> itemIds = new ArrayList<>();
+        writeTx.executeWithoutResult(status -> {
+            for (int i = 0; i < members; i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + i, "street" + i, "zip" + i));
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+            for (int i = 0; i < items; i++) {
+                Book book = new Book();
+                book.setName("book" + i);
+                book.setPrice(10000 + i);
+                book.setStockQuantity(Integer.MAX_VALUE / 2);
+                em.persist(book);
+                itemIds.add(book.getId());
+            }
+        });
+
+        int chunk = 1000;
+        for (int from = 0; from < orders; from += chunk) {
+            int start = from;
+            int end = Math.min(orders, from + chunk);
+            writeTx.executeWithoutResult(status -> {
+                for (int i = start; i < end; i++) {
+                    Member member = em.find(Member.class, memberIds.get(i % memberIds.size()));
+                    OrderItem[] orderItems = new OrderItem[itemsPerOrder];
+                    for (int j = 0; j < itemsPerOrder; j++) {
+                        Item item = em.find(Item.class, itemIds.get((i + j) % itemIds.size()));
+                        orderItems[j] = OrderItem.createOrderItem(item, item.getPrice(), 1);
+                    }
+                    Delivery delivery = new Delivery();
+                    delivery.setAddress(member.getAddress());
+                    em.persist(Order.createOrder(member, delivery, orderItems));
+                }
+            });
+        }
+    }
+
+    /**
+     * readOnly 트랜잭션 안에서 실행하고 그동안 나간 sql 수를 counter에 더한다.
+     */
+    public <T> T read(StatementCounter counter, Supplier<T> query) {
+        long before = statistics.getPrepareStatementCount();
+        T result = readOnlyTx.execute(status -> query.get());
+        counter.add(statistics.getPrepareStatementCount() - before);
+        return result;
+    }
+
+    public <T> T write(StatementCounter counter, Supplier<T> command) {
+        long before = statistics.getPrepareStatementCount();
+        T result = writeTx.execute(status -> command.get());
+        counter.add(statistics.getPrepareStatementCount() - before);
+        return result;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
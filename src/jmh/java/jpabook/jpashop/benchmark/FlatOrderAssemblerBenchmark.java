@@ -0,0 +1,89 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.FlatOrderAssembler;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * v6 flat 조인 결과 묶기 비교 (DB 없이 묶는 비용만)
+ * - groupingBy: 기존 ordersV6 방식
+ * - assembleSorted: order id 순 row를 한 번 훑기
+ * - assembleUnsorted: 섞인 row를 long 전용 맵으로 묶기
+ * 실행: ./gradlew jmh -PjmhIncludes=FlatOrderAssembler
+ * -> 결과(build/results/jmh/results.json)의 gc.alloc.rate.norm(호출 1번 = orders건 묶기당 할당 바이트)을 같은 파라미터의 groupingBy와 비교
+ *    row 1건당 값은 orders * itemsPerOrder로 나눈다.
+ * 힙을 고정해서 GC 횟수가 실행마다 달라지지 않게 한다. (alloc.rate.norm 자체는 힙 크기와 상관없다.)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class FlatOrderAssemblerBenchmark {
+
+    @Param({"1000", "10000"})
+    public int orders;
+
+    @Param({"2", "5"})
+    public int itemsPerOrder;
+
+    private List<OrderFlatDto> sortedRows;
+    private List<OrderFlatDto> shuffledRows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sortedRows = new ArrayList<>(orders * itemsPerOrder);
+        LocalDateTime now = LocalDateTime.now();
+        for (long orderId = 1; orderId <= orders; orderId++) {
+            Address address = new Address("city" + orderId, "street", "zip");
+            for (int j = 0; j < itemsPerOrder; j++) {
+                sortedRows.add(new OrderFlatDto(orderId, "member" + orderId, now, OrderStatus.ORDER, address,
+                        "item" + j, 10000 + j, 1));
+            }
+        }
+        shuffledRows = new ArrayList<>(sortedRows);
+        Collections.shuffle(shuffledRows, new Random(42));
+
+        // 세 방식이 같은 결과를 만드는지 먼저 확인 -> 틀린 구현을 빠르다고 측정하지 않도록
+        for (List<OrderQueryDto> result : List.of(groupingBy(), assembleSorted(), assembleUnsorted())) {
+            if (result.size() != orders || result.stream().anyMatch(order -> order.getOrderItems().size() != itemsPerOrder)) {
+                throw new IllegalStateException("묶은 결과가 다릅니다. orders=" + orders + ", itemsPerOrder=" + itemsPerOrder);
+            }
+        }
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> groupingBy() {
+        return sortedRows.stream()
+                .collect(Collectors.groupingBy(o -> new OrderQueryDto(o.getOrderId(),
+                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
+                        Collectors.mapping(o -> new OrderItemQueryDto(o.getOrderId(),
+                                o.getItemName(), o.getOrderPrice(), o.getCount()), Collectors.toList())
+                )).entrySet().stream()
+                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
+                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
+                        e.getKey().getAddress(), e.getValue()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> assembleSorted() {
+        return FlatOrderAssembler.assemble(sortedRows);
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> assembleUnsorted() {
+        return FlatOrderAssembler.assemble(shuffledRows);
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportService;
+import jpabook.jpashop.service.MemberService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 등록 처리량 비교: 1명씩 가입(join) vs 일괄 등록(CSV import)
+ * OperationsPerInvocation을 등록 건수로 맞춰서 결과가 "초당 등록 row 수"로 나온다.
+ * 호출마다 새 이름을 쓰므로 중복 검사는 항상 통과한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MemberImportBenchmark {
+    private static final int ROWS_PER_CALL = 10000;
+    private static final int JOINS_PER_CALL = 1000;
+
+    private BenchmarkContext context;
+    private MemberService memberService;
+    private MemberImportService memberImportService;
+    private int invocation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        context.seed(10000, 0, 0, 0); // 기존 회원이 있는 상태에서 중복 검사
+        memberService = context.getBean(MemberService.class);
+        memberImportService = context.getBean(MemberImportService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(JOINS_PER_CALL)
+    public int joinOneByOne() {
+        String prefix = "join" + (invocation++) + "-";
+        for (int i = 0; i < JOINS_PER_CALL; i++) {
+            Member member = new Member();
+            member.setName(prefix + i);
+            memberService.join(member);
+        }
+        return JOINS_PER_CALL;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_CALL)
+    public long importCsv() throws IOException {
+        String prefix = "import" + (invocation++) + "-";
+        StringBuilder csv = new StringBuilder(ROWS_PER_CALL * 32).append("name,city,street,zipcode\n");
+        for (int i = 0; i < ROWS_PER_CALL; i++) {
+            csv.append(prefix).append(i).append(",city,street,").append(i).append('\n');
+        }
+        return memberImportService.importMembers(new StringReader(csv.toString()), MemberImportService.Format.CSV).getImportedRows();
+    }
+}
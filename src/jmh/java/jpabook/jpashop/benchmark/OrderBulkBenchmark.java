@@ -0,0 +1,65 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderService;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 처리량 비교: 1건씩 주문(order) vs 대량 주문(orderAll, jdbc batch insert)
+ * OperationsPerInvocation을 주문 건수로 맞춰서 결과가 "초당 주문 수"로 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderBulkBenchmark {
+    private static final int ORDERS_PER_CALL = 1000;
+
+    private BenchmarkContext context;
+    private OrderService orderService;
+    private List<OrderCommand> commands;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        context.seed(100, 100, 0, 0);
+        orderService = context.getBean(OrderService.class);
+
+        EntityManager em = context.getBean(EntityManager.class);
+        List<Long> memberIds = context.read(new StatementCounter(),
+                () -> em.createQuery("select m.id from Member m", Long.class).getResultList());
+        List<Long> itemIds = context.read(new StatementCounter(),
+                () -> em.createQuery("select i.id from Item i", Long.class).getResultList());
+
+        commands = new ArrayList<>(ORDERS_PER_CALL);
+        for (int i = 0; i < ORDERS_PER_CALL; i++) {
+            commands.add(new OrderCommand(memberIds.get(i % memberIds.size()), itemIds.get(i % itemIds.size()), 1));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_CALL)
+    public int orderOneByOne(StatementCounter counter) {
+        int placed = 0;
+        for (OrderCommand command : commands) {
+            context.write(counter, () -> orderService.order(command.getMemberId(), command.getItemId(), command.getCount()));
+            placed++;
+        }
+        return placed;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ORDERS_PER_CALL)
+    public List<Long> orderAll(StatementCounter counter) {
+        return context.write(counter, () -> orderService.orderAll(commands));
+    }
+}
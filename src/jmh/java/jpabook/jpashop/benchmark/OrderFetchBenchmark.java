@@ -0,0 +1,111 @@
+package jpabook.jpashop.benchmark;
+
+import jpabook.jpashop.api.OrderApiController;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OrderApiController의 주문 조회 전략 비교 (엔티티 fetch join, batch fetch 페이징, dto N+1, dto in, flat 조인)
+ * 엔티티 조회는 OrderDto를 만들 때처럼 member, delivery, orderItems.item까지 지연 로딩을 모두 초기화한다.
+ * 실행: ./gradlew jmh -> 처리량, gc.alloc.rate.norm(호출당 할당 바이트), statements/calls(호출당 sql 수)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class OrderFetchBenchmark {
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"100", "1000"})
+    public int members;
+
+    @Param({"1000", "10000"})
+    public int orders;
+
+    @Param({"2", "5"})
+    public int itemsPerOrder;
+
+    private BenchmarkContext context;
+    private OrderRepository orderRepository;
+    private OrderQueryRepository orderQueryRepository;
+    private OrderApiController orderApiController;
+
+    private int deepOffset; // 마지막 페이지 offset
+    private Long deepLastOrderId; // 마지막 페이지 직전의 order id (keyset)
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start();
+        context.seed(members, 100, orders, itemsPerOrder);
+
+        orderRepository = context.getBean(OrderRepository.class);
+        orderQueryRepository = context.getBean(OrderQueryRepository.class);
+        orderApiController = context.getBean(OrderApiController.class);
+
+        deepOffset = Math.max(0, orders - PAGE_SIZE);
+        deepLastOrderId = context.read(new StatementCounter(),
+                () -> orderRepository.findAllWithMemberDelivery(Math.max(0, deepOffset - 1), 1).get(0).getId());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int findAllWithItem(StatementCounter counter) { // v3
+        return context.read(counter, () -> touch(orderRepository.findAllWithItem()));
+    }
+
+    @Benchmark
+    public int findAllWithMemberDelivery_offset(StatementCounter counter) { // v3.1 (offset, 마지막 페이지)
+        return context.read(counter, () -> touch(orderRepository.findAllWithMemberDelivery(deepOffset, PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public int findAllWithMemberDelivery_keyset(StatementCounter counter) { // v3.1 (keyset, 마지막 페이지)
+        return context.read(counter, () -> touch(orderRepository.findAllWithMemberDelivery(deepLastOrderId, PAGE_SIZE)));
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> findOrderQueryDtos(StatementCounter counter) { // v4
+        return context.read(counter, () -> orderQueryRepository.findOrderQueryDtos());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> findAllByDto_optimization(StatementCounter counter) { // v5
+        return context.read(counter, () -> orderQueryRepository.findAllByDto_optimization());
+    }
+
+    @Benchmark
+    public List<OrderFlatDto> findAllByDto_flat(StatementCounter counter) { // v6 (조회만)
+        return context.read(counter, () -> orderQueryRepository.findAllByDto_flat());
+    }
+
+    @Benchmark
+    public List<OrderQueryDto> ordersV6(StatementCounter counter) { // v6 (조회 + OrderQueryDto로 다시 묶기)
+        return context.read(counter, () -> orderApiController.ordersV6());
+    }
+
+    /**
+     * OrderDto로 변환할 때처럼 지연 로딩을 전부 초기화한다.
+     */
+    private static int touch(List<Order> orders) {
+        int checksum = 0;
+        for (Order order : orders) {
+            checksum += order.getMember().getName().length();
+            checksum += order.getDelivery().getAddress().getCity().length();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                checksum += orderItem.getItem().getName().length();
+            }
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * 벤치마크 결과에 sql 수를 같이 찍기 위한 보조 카운터
+ * statements / calls = 호출 1번당 나간 sql 수
+ */
+@State(Scope.Thread)
+@AuxCounters(AuxCounters.Type.EVENTS)
+public class StatementCounter {
+    public long statements;
+    public long calls;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+        statements = 0;
+        calls = 0;
+    }
+
+    void add(long statementCount) {
+        statements += statementCount;
+        calls++;
+    }
+}
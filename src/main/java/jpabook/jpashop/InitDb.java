@@ -3,6 +3,7 @@ package jpabook.jpashop;
 import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -35,6 +36,8 @@ public class InitDb {
     @RequiredArgsConstructor
     static class InitService {
         private final EntityManager em;
+        private final ApplicationEventPublisher eventPublisher;
+
         public void dbInit1() {
             Member member = createMember("userA", "서울", "1", "111");
             em.persist(member);
@@ -51,6 +54,7 @@ public class InitDb {
             Delivery delivery = createDelivery(member);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);// orderItem은 ... 파라미터이기때문에 여러개를 넘길 수 있다.
             em.persist(order);
+            eventPublisher.publishEvent(new OrderCreatedEvent(order)); // order_summary 갱신
         }
 
         public void dbInit2() {
@@ -69,6 +73,7 @@ public class InitDb {
             Delivery delivery = createDelivery(member);
             Order order = Order.createOrder(member, delivery, orderItem1, orderItem2);// orderItem은 ... 파라미터이기때문에 여러개를 넘길 수 있다.
             em.persist(order);
+            eventPublisher.publishEvent(new OrderCreatedEvent(order)); // order_summary 갱신
         }
 
         private Delivery createDelivery(Member member) {
@@ -5,8 +5,10 @@ import org.hibernate.Hibernate;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling // 재고 반영 등 주기 작업(@Scheduled) 활성화
 public class JpashopApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,113 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.service.CategoryService;
+import jpabook.jpashop.service.CategoryTree;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Validated // @RequestParam 검증(@Min, @Max) -> 실패하면 400 (ApiExceptionHandler)
+@RestController
+@RequiredArgsConstructor
+public class CategoryApiController {
+    private final CategoryService categoryService;
+
+    /**
+     * 카테고리 트리 전체 -> 메모리 스냅샷에서 만들기 때문에 DB를 조회하지 않는다.
+     * @return 최상위 카테고리 목록 (하위 카테고리는 children)
+     */
+    @GetMapping("/api/v1/categories")
+    public Result<List<CategoryDto>> categories() {
+        List<CategoryDto> roots = categoryService.getTree().getRoots().stream()
+                .map(CategoryDto::new)
+                .collect(Collectors.toList());
+        return new Result<>(roots);
+    }
+
+    /**
+     * 카테고리와 그 하위 카테고리 전체의 상품 (keyset 페이징)
+     * @param categoryId
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 1 ~ 1000
+     * @return CursorResult<List<CategoryItemDto>>
+     */
+    @GetMapping("/api/v1/categories/{categoryId}/items")
+    public CursorResult<List<CategoryItemDto>> categoryItems(@PathVariable("categoryId") Long categoryId,
+                                                             @RequestParam(value = "cursor", required = false) String cursor,
+                                                             @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        List<CategoryItemDto> result = categoryService.findItems(categoryId, IdCursor.decode(cursor), limit).stream()
+                .map(CategoryItemDto::new)
+                .collect(Collectors.toList());
+        return CursorResult.of(result, CategoryItemDto::getItemId, limit);
+    }
+
+    @PostMapping("/api/v1/categories")
+    public CreateCategoryResponse saveCategory(@RequestBody @Valid CreateCategoryRequest request) {
+        Long id = categoryService.addCategory(request.getName(), request.getParentId());
+        return new CreateCategoryResponse(id);
+    }
+
+    @PostMapping("/api/v1/categories/{categoryId}/items/{itemId}")
+    public void addCategoryItem(@PathVariable("categoryId") Long categoryId, @PathVariable("itemId") Long itemId) {
+        categoryService.addItem(categoryId, itemId);
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class Result<T> {
+        private T data;
+    }
+
+    @Data
+    static class CategoryDto {
+        private Long id;
+        private String name;
+        private int depth;
+        private List<CategoryDto> children;
+
+        public CategoryDto(CategoryTree.Node node) {
+            id = node.getId();
+            name = node.getName();
+            depth = node.getDepth();
+            children = node.getChildren().stream()
+                    .map(CategoryDto::new)
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Data
+    static class CategoryItemDto {
+        private Long itemId;
+        private String name;
+        private int price;
+
+        public CategoryItemDto(Item item) {
+            itemId = item.getId();
+            name = item.getName();
+            price = item.getPrice();
+        }
+    }
+
+    @Data
+    static class CreateCategoryRequest {
+        @NotEmpty
+        private String name;
+        private Long parentId;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateCategoryResponse {
+        private Long id;
+    }
+}
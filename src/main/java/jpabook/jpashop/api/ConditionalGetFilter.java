@@ -0,0 +1,153 @@
+package jpabook.jpashop.api;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.service.ResourceVersions;
+import jpabook.jpashop.service.ResourceVersions.Resource;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Map;
+
+/**
+ * 대시보드가 반복해서 조회하는 API의 조건부 GET + 응답 캐시
+ * - ETag는 ResourceVersions의 변경 카운터로 만든다. -> If-None-Match가 같으면 DB, jackson 없이 바로 304
+ * - 쿼리 파라미터가 없는 요청은 직렬화된 응답 bytes를 그대로 보관했다가 버전이 같으면 다시 쓴다. (전체 크기 상한, 넘으면 오래 안 쓴 것부터 제거)
+ * - 버전 카운터는 인스턴스 메모리에만 있어서 다른 인스턴스의 쓰기를 모른다. -> 여러 대면 오래된 응답을 계속 줄 수 있으므로
+ *   jpashop.response-cache.single-instance=true(한 대로만 운영)일 때만 켜진다. 아니면 요청을 그대로 통과시킨다.
+ */
+@Component
+public class ConditionalGetFilter extends OncePerRequestFilter {
+    // 응답 내용에 영향을 주는 리소스 -> 하나라도 바뀌면 ETag가 바뀐다.
+    private static final Map<String, Resource[]> CACHEABLE = Map.of(
+            "/api/v2/members", new Resource[]{Resource.MEMBER},
+            "/api/v4/simple-orders", new Resource[]{Resource.ORDER, Resource.MEMBER}, // 회원명 포함
+            "/api/v5/orders", new Resource[]{Resource.ORDER, Resource.MEMBER, Resource.ITEM}); // 회원명, 상품명 포함
+
+    private final ResourceVersions resourceVersions;
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, CachedResponse> responses;
+    private final long maxEntryBytes;
+    private final boolean enabled;
+
+    public ConditionalGetFilter(ResourceVersions resourceVersions,
+                                MeterRegistry meterRegistry,
+                                @Value("${jpashop.response-cache.max-bytes:67108864}") long maxBytes,
+                                @Value("${jpashop.response-cache.single-instance:false}") boolean singleInstance) {
+        this.resourceVersions = resourceVersions;
+        this.enabled = singleInstance;
+        this.meterRegistry = meterRegistry;
+        this.maxEntryBytes = maxBytes / 4; // 한 응답이 캐시를 혼자 다 쓰지 않도록
+        this.responses = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String path, CachedResponse response) -> response.body.length)
+                .build();
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !"GET".equals(request.getMethod()) || !CACHEABLE.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        String path = request.getRequestURI();
+        String query = request.getQueryString();
+        // 쿼리 전에 버전을 읽는다. -> 도중에 커밋된 쓰기가 있으면 다음 요청에서 새 ETag로 다시 만든다.
+        String etag = query == null
+                ? resourceVersions.etag(CACHEABLE.get(path))
+                : etagWithQuery(resourceVersions.etag(CACHEABLE.get(path)), query);
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            record("not_modified");
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            setCacheHeaders(response, etag);
+            return;
+        }
+
+        CachedResponse cached = query == null ? responses.getIfPresent(path) : null;
+        if (cached != null && cached.etag.equals(etag)) {
+            record("hit");
+            setCacheHeaders(response, etag);
+            response.setContentType(cached.contentType);
+            response.setContentLength(cached.body.length);
+            response.getOutputStream().write(cached.body);
+            return;
+        }
+
+        record("miss");
+        ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+        filterChain.doFilter(request, wrapper);
+        if (wrapper.getStatus() == HttpServletResponse.SC_OK) {
+            setCacheHeaders(wrapper, etag);
+            byte[] body = wrapper.getContentAsByteArray();
+            if (query == null && body.length <= maxEntryBytes) {
+                responses.put(path, new CachedResponse(etag, wrapper.getContentType(), body));
+            }
+        }
+        wrapper.copyBodyToResponse();
+    }
+
+    /**
+     * 검색 조건이 다르면 내용도 다르다. -> 같은 버전이라도 다른 ETag
+     * 파라미터 순서를 정렬한 쿼리의 SHA-256 앞 128bit(base64url)를 붙인다. (String.hashCode는 "Aa"/"BB"처럼 쉽게 겹친다.)
+     */
+    private static String etagWithQuery(String etag, String query) {
+        String[] params = query.split("&");
+        Arrays.sort(params); // a=1&b=2와 b=2&a=1은 같은 조건
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(String.join("&", params).getBytes(StandardCharsets.UTF_8));
+            String hash = Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 16));
+            return etag.substring(0, etag.length() - 1) + "-" + hash + '"';
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // 모든 jvm이 SHA-256을 지원해야 한다.
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) { // 약한 비교
+                tag = tag.substring(2);
+            }
+            if (tag.equals(etag) || tag.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void setCacheHeaders(HttpServletResponse response, String etag) {
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache"); // 저장은 하되 매번 ETag로 확인
+    }
+
+    private void record(String result) {
+        meterRegistry.counter("http.response.cache", "result", result).increment();
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedResponse {
+        private final String etag;
+        private final String contentType;
+        private final byte[] body;
+    }
+}
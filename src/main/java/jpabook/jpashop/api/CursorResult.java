@@ -0,0 +1,29 @@
+package jpabook.jpashop.api;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * keyset 페이징 응답 껍데기
+ * {"data": [...], "nextCursor": "..."} -> nextCursor가 null이면 마지막 페이지
+ */
+@Data
+@AllArgsConstructor
+public class CursorResult<T> {
+    public static final int MAX_LIMIT = 1000; // 페이징 api의 limit 상한 (@Max)
+
+    private T data;
+    private String nextCursor;
+
+    /**
+     * 조회한 페이지의 마지막 id로 다음 커서를 만든다. (limit만큼 꽉 찼을 때만)
+     * @param idMapper row의 keyset id (ex. orderId)
+     */
+    public static <R> CursorResult<List<R>> of(List<R> result, Function<R, Long> idMapper, int limit) {
+        Long lastId = result.isEmpty() ? null : idMapper.apply(result.get(result.size() - 1));
+        return new CursorResult<>(result, IdCursor.next(lastId, result.size(), limit));
+    }
+}
@@ -0,0 +1,57 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.exception.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * keyset(seek) 페이징용 커서
+ * 마지막으로 내려준 id를 클라이언트가 해석하지 못하도록(opaque) base64로 감싸서 주고받는다.
+ * -> offset 방식은 앞 페이지를 모두 읽고 버려야 하지만, "id > 마지막 id" 조건은 PK 인덱스로 바로 찾아간다.
+ */
+public final class IdCursor {
+    private static final String PREFIX = "id:";
+
+    private IdCursor() {
+    }
+
+    public static String encode(Long lastId) {
+        if (lastId == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return 커서가 없으면 null (첫 페이지)
+     * @throws InvalidRequestException 해석할 수 없는 커서 (-> 400)
+     */
+    public static Long decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) { // base64가 아님
+            throw new InvalidRequestException("잘못된 커서입니다.", e);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new InvalidRequestException("잘못된 커서입니다.");
+        }
+        try {
+            return Long.parseLong(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidRequestException("잘못된 커서입니다.", e);
+        }
+    }
+
+    /**
+     * 조회 결과가 limit만큼 꽉 찼을 때만 다음 페이지가 있다고 보고 커서를 만들어준다.
+     */
+    public static String next(Long lastId, int resultSize, int limit) {
+        return resultSize < limit ? null : encode(lastId);
+    }
+}
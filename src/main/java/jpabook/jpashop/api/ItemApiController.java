@@ -0,0 +1,34 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.item.search.ItemSearchResult;
+import jpabook.jpashop.service.ItemService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
+
+@Validated
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+    private final ItemService itemService;
+
+    /**
+     * 상품 검색 -> Lucene 인덱스만 조회 (item 테이블을 읽지 않음)
+     * @param q 검색어 (ex. "jpa", "김영", "spirng" -> 오타도 검색된다)
+     * @param offset
+     * @param limit
+     * @return 점수순 검색 결과와 전체 건수
+     */
+    @GetMapping("/api/v1/items/search")
+    public ItemSearchResult searchItems(@RequestParam("q") @NotBlank String q,
+                                        @RequestParam(value = "offset", defaultValue = "0") @Min(0) int offset,
+                                        @RequestParam(value = "limit", defaultValue = "20") @Min(1) @Max(100) int limit) {
+        return itemService.searchItems(q, offset, limit);
+    }
+}
@@ -1,21 +1,35 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.service.MemberImportReport;
+import jpabook.jpashop.service.MemberImportService;
 import jpabook.jpashop.service.MemberService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotEmpty;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController // @Controller + @ResponseBody가 합쳐진 것 => 데이터 자체를 json이나 xml로 보낼때 사용하는 어노테이션
+@Validated // @RequestParam 검증(@Min, @Max) -> 실패하면 400 (ApiExceptionHandler)
 @RequiredArgsConstructor
 public class MemberApiController {
     private final MemberService memberService;
+    private final MemberImportService memberImportService;
 
     /**
      * 회원가입 v1
@@ -42,6 +56,22 @@ public class MemberApiController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 회원 일괄 등록 -> body를 다 받아두지 않고 읽으면서 500줄씩 등록한다. (수백만 건도 메모리 일정)
+     * curl -X POST -H "Content-Type: text/csv" --data-binary @members.csv localhost:8080/api/v1/members/import
+     * @return 건수, rows/s, 실패한 줄 번호와 사유
+     */
+    @PostMapping(value = "/api/v1/members/import", consumes = {"text/csv", "application/x-ndjson"})
+    public MemberImportReport importMembers(HttpServletRequest request) throws IOException {
+        MemberImportService.Format format = MediaType.parseMediaType(request.getContentType()).isCompatibleWith(MediaType.valueOf("text/csv"))
+                ? MemberImportService.Format.CSV
+                : MemberImportService.Format.NDJSON;
+        Charset charset = request.getCharacterEncoding() == null ? StandardCharsets.UTF_8 : Charset.forName(request.getCharacterEncoding());
+        try (Reader reader = new InputStreamReader(request.getInputStream(), charset)) {
+            return memberImportService.importMembers(reader, format);
+        }
+    }
+
     /**
      * 회원 수정 v2
      * @param id
@@ -70,27 +100,31 @@ public class MemberApiController {
         return memberService.findMembers();
     }
 
+    /**
+     * 회원 목록 조회 v2 -> member id 기준 keyset 페이징 + 요청한 필드만 조회
+     * @param fields 응답에 담을 필드 (id,name,city,street,zipcode 중 쉼표로 구분, 생략하면 name)
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 기본 100, 1 ~ 1000 (벗어나거나 없는 필드를 요청하면 400)
+     * @return Result<List<MemberQueryDto>>
+     * - 엔티티 전체를 영속성 컨텍스트에 올려서 name만 꺼내던 것을 select m.id, m.name ... 으로 필요한 컬럼만 읽는다.
+     * - 회원이 아무리 많아도 한 번에 limit건만 읽으므로 메모리, 응답 시간이 일정하다.
+     */
     @GetMapping("/api/v2/members")
-    public Result memberV2() {
-        List<Member> findMembers = memberService.findMembers();
-        List<MemberDto> collect = findMembers.stream()
-                .map(m -> new MemberDto(m.getName()))
-                .collect(Collectors.toList());
-        return new Result(collect); // 바로 list를 내보내지 않고, Object(껍데기)로 감싸는 이유는
+    public Result<List<MemberQueryDto>> memberV2(@RequestParam(value = "fields", defaultValue = "name") List<String> fields,
+                                                 @RequestParam(value = "cursor", required = false) String cursor,
+                                                 @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        List<MemberQueryDto> result = memberService.findMemberPage(fields, IdCursor.decode(cursor), limit);
+        Long lastMemberId = result.isEmpty() ? null : result.get(result.size() - 1).getMemberId();
+        return new Result<>(result, IdCursor.next(lastMemberId, result.size(), limit)); // 바로 list를 내보내지 않고, Object(껍데기)로 감싸는 이유는
         // 리스트만 보내면 json을 보면 [{}, {}, ...] 이렇게 리스트만 딱 반환된다. 나중에 다른 데이터가 추가 될때 유연성이 떨어진다.
-        // 그래서 {"data":[{}, {}, ...], ...} 이런 형식으로 보내기 위해 겉에 Object로 감싸준다.
+        // 그래서 {"data":[{}, {}, ...], ...} 이런 형식으로 보내기 위해 겉에 Object로 감싸준다. -> 이번에 nextCursor를 추가해도 기존 클라이언트는 그대로
     }
 
     @Data
     @AllArgsConstructor
     static class Result<T> { // generic type
         private T data;
-    }
-
-    @Data
-    @AllArgsConstructor
-    static class MemberDto {
-        private String name;
+        private String nextCursor; // null이면 마지막 페이지
     }
 
     @Data
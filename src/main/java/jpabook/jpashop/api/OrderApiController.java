@@ -4,27 +4,56 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import jpabook.jpashop.monitoring.QueryInspectorFilter;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.FlatOrderAssembler;
+import jpabook.jpashop.repository.order.query.OrderDetailQueryDto;
+import jpabook.jpashop.repository.order.query.OrderDetailQueryRepository;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
-import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderExportService;
+import jpabook.jpashop.service.OrderIntakeService;
+import jpabook.jpashop.service.OrderFacade;
+import jpabook.jpashop.service.OrderTicket;
+import jpabook.jpashop.service.query.OrderQueryService;
+import lombok.AllArgsConstructor;
+import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.validation.annotation.Validated;
+import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.Size;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
+@Validated // @RequestParam 검증(@Min, @Max) -> 실패하면 400 (ApiExceptionHandler)
 @RestController
 @RequiredArgsConstructor
 public class OrderApiController {
-    private final OrderRepository orderRepository;
+    private final OrderQueryService orderQueryService;
     private final OrderQueryRepository orderQueryRepository;
+    private final OrderDetailQueryRepository orderDetailQueryRepository;
+    private final OrderExportService orderExportService;
+    private final OrderFacade orderFacade;
+    private final OrderIntakeService orderIntakeService;
 
     /**
      * entity 직접 사용
@@ -32,17 +61,8 @@ public class OrderApiController {
      */
     @GetMapping("/api/v1/orders")
     public List<Order> orderV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
-
-        // LAZY 초기화 (OrderSimpleApiController 참고)
-        for (Order order : all) {
-            order.getMember().getName(); // OSIV off시 could not initialize proxy 에러 발생 -> 지연 로딩을 초기화 할 수 없다.
-            order.getDelivery().getAddress();
-
-            List<OrderItem> orderItems = order.getOrderItems();
-            orderItems.stream().forEach(o -> o.getItem().getName());
-        }
-        return all;
+        // LAZY 초기화는 트랜잭션 안에서 (OrderSimpleApiController 참고) -> OSIV off시 밖에서 초기화하면 could not initialize proxy 에러 발생
+        return orderQueryService.findOrdersInitialized(new OrderSearch(), true);
     }
 
     /**
@@ -52,14 +72,9 @@ public class OrderApiController {
     @GetMapping("/api/v2/orders")
     public List<OrderDto> orderV2() {
         // ORDER 2개 조회
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
-
         // Order 개수만큼 루프 돌며 LAZY 조회 -> Member, Delivery, OrderItems 2개 조회 -> 개수만큼 루프돌며 Item 조회
         // => 쿼리가 어마어마하게 나감..
-        List<OrderDto> result = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(Collectors.toList());
-        return result;
+        return orderQueryService.findOrders(new OrderSearch(), OrderDto::new); // dto 변환(지연 로딩)까지 트랜잭션 안에서
     }
 
     /**
@@ -71,28 +86,25 @@ public class OrderApiController {
      */
     @GetMapping("/api/v3/orders")
     public List<OrderDto> orderV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
-        return orders.stream()
-                .map(OrderDto::new)
-                .collect(Collectors.toList());
+        return orderQueryService.findAllWithItem(OrderDto::new);
     }
 
     /**
      * 페이징이 가능한 컬렉션 fetch join
-     * @param offset
-     * @param limit
-     * @return List<OrderDto>
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 1 ~ 1000
+     * @return CursorResult<List<OrderDto>>
      * - ToOne 관계만 우선 모두 페치 조인으로 최적화
      * - 컬랙션은 지연 로딩
      * - 지연 로딩을 hibernate.default_batch_fetch_size, @BatchSize로 최적화
+     * - offset 대신 order id 기준 keyset 페이징 -> 뒤 페이지로 가도 앞 데이터를 읽고 버리지 않아서 응답 시간이 일정하다.
      */
     @GetMapping("/api/v3.1/orders")
-    public List<OrderDto> orderV3_page(@RequestParam(value = "offset", defaultValue = "0") int offset,
-                                       @RequestParam(value = "limit", defaultValue = "100") int limit) {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit); // Orders와 관련된 ToOne 관계들은 한번에 가져온다 -> fetch join
-        return orders.stream()
-                .map(OrderDto::new)
-                .collect(Collectors.toList());
+    public CursorResult<List<OrderDto>> orderV3_page(@RequestParam(value = "cursor", required = false) String cursor,
+                                                     @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        // Orders와 관련된 ToOne 관계들은 한번에 가져온다 -> fetch join, 컬렉션은 OrderDto를 만들면서 batch fetch
+        List<OrderDto> result = orderQueryService.findAllWithMemberDelivery(IdCursor.decode(cursor), limit, OrderDto::new);
+        return CursorResult.of(result, OrderDto::getOrderId, limit);
     }
 
     /**
@@ -113,6 +125,19 @@ public class OrderApiController {
         return orderQueryRepository.findAllByDto_optimization();
     }
 
+    /**
+     * v5의 keyset 페이징 버전 -> 페이지마다 쿼리 2번(루트 1, 컬렉션 1)
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 1 ~ 1000
+     * @return CursorResult<List<OrderQueryDto>>
+     */
+    @GetMapping("/api/v5.1/orders")
+    public CursorResult<List<OrderQueryDto>> ordersV5_page(@RequestParam(value = "cursor", required = false) String cursor,
+                                                           @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        List<OrderQueryDto> result = orderQueryRepository.findAllByDto_optimization(IdCursor.decode(cursor), limit);
+        return CursorResult.of(result, OrderQueryDto::getOrderId, limit);
+    }
+
     /**
      * v5를 최적화 -> 쿼리 1번
      * @return List<OrderQueryDto>
@@ -124,16 +149,104 @@ public class OrderApiController {
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> ordersV6() {
         List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
-        return flats.stream()
-                .collect(Collectors.groupingBy(o -> new OrderQueryDto(o.getOrderId(),
-                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()), // key 설정
-                        Collectors.mapping(o -> new OrderItemQueryDto(o.getOrderId(),
-                                o.getItemName(), o.getOrderPrice(), o.getCount()), Collectors.toList()) // value 설정
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
-                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
-                        e.getKey().getAddress(), e.getValue()))
+        return FlatOrderAssembler.assemble(flats); // order id 순 row를 한 번 훑어서 주문 단위로 묶는다. (groupingBy 대신)
+    }
+
+    /**
+     * 주문 상세(회원, 배송, 주문상품) keyset 페이징 -> 루트 1번 후 자식 쿼리 3개를 서로 다른 커넥션에서 동시에 실행
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 1 ~ 1000
+     * @return CursorResult<List<OrderDetailQueryDto>>
+     */
+    @GetMapping("/api/v7/orders")
+    public CursorResult<List<OrderDetailQueryDto>> ordersV7(@RequestParam(value = "cursor", required = false) String cursor,
+                                                            @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        List<OrderDetailQueryDto> result = orderDetailQueryRepository.findOrderDetails(IdCursor.decode(cursor), limit);
+        return CursorResult.of(result, OrderDetailQueryDto::getOrderId, limit);
+    }
+
+    /**
+     * 전체 주문 streaming export -> v6와 같은 flat 조인이지만 List로 모으지 않고 주문 단위로 바로 응답에 쓴다.
+     * 주문 수가 아무리 많아도 힙 사용량이 일정하다.
+     */
+    @GetMapping("/api/v6/orders/export")
+    public void exportOrders(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        QueryInspectorFilter.streaming(request); // 응답을 버퍼링하지 않고 바로 쓴다.
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        orderExportService.exportAll(response.getOutputStream());
+    }
+
+    /**
+     * 대량 주문 -> 요청 전체를 한 트랜잭션에서 주문한다.
+     * 100건씩 회원/상품을 in 쿼리로 조회하고, insert는 jdbc batch로 묶여서 나간다. (OrderService.orderAll 참고)
+     * @param request
+     * @return 요청 순서대로의 orderId
+     */
+    @PostMapping("/api/v1/orders/bulk")
+    public BulkOrderResponse bulkOrder(@RequestBody @Valid BulkOrderRequest request) {
+        List<OrderCommand> commands = request.getOrders().stream()
+                .map(o -> new OrderCommand(o.getMemberId(), o.getItemId(), o.getCount()))
                 .collect(Collectors.toList());
+        return new BulkOrderResponse(orderFacade.orderAll(commands)); // 낙관적 락 충돌 시 재시도
+    }
+
+    /**
+     * 비동기 주문 접수 -> 대기열에 넣고 바로 202 + 접수증을 응답한다. 주문 처리는 워커가 한다. (OrderIntakeService 참고)
+     * 대기열이 가득 차면 429 -> 톰캣 스레드와 DB 커넥션을 붙잡고 기다리지 않는다.
+     * @param request
+     * @return 접수증 (Location 헤더로 상태 조회 주소)
+     */
+    @PostMapping("/api/v1/orders/async")
+    public ResponseEntity<OrderTicketResponse> orderAsync(@RequestBody @Valid OrderLineRequest request) {
+        try {
+            OrderTicket ticket = orderIntakeService.submit(new OrderCommand(request.getMemberId(), request.getItemId(), request.getCount()));
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/v1/orders/async/" + ticket.getId())
+                    .body(new OrderTicketResponse(ticket));
+        } catch (OrderQueueFullException e) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .build();
+        }
+    }
+
+    /**
+     * 비동기 주문 상태 조회 (PENDING -> COMPLETED 또는 FAILED)
+     * @param ticketId
+     * @return 접수증 (없거나 보관 기간이 지났으면 404)
+     */
+    @GetMapping("/api/v1/orders/async/{ticketId}")
+    public ResponseEntity<OrderTicketResponse> orderAsyncStatus(@PathVariable("ticketId") String ticketId) {
+        OrderTicket ticket = orderIntakeService.findTicket(ticketId);
+        if (ticket == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(new OrderTicketResponse(ticket));
+    }
+
+    @Data
+    static class BulkOrderRequest {
+        @Valid
+        @NotEmpty
+        @Size(max = 10000) // 한 트랜잭션이 너무 커지지 않도록 제한
+        private List<OrderLineRequest> orders;
+    }
+
+    @Data
+    static class OrderLineRequest {
+        @NotNull
+        private Long memberId;
+        @NotNull
+        private Long itemId;
+        @Positive
+        private int count;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BulkOrderResponse {
+        private List<Long> orderIds;
     }
 
     @Getter
@@ -175,4 +288,21 @@ public class OrderApiController {
             count = orderItem.getCount();
         }
     }
+
+    @Data
+    static class OrderTicketResponse {
+        private String ticketId;
+        private OrderTicket.Status status;
+        private Long orderId;
+        private String failureMessage;
+        private LocalDateTime acceptedAt;
+
+        public OrderTicketResponse(OrderTicket ticket) {
+            ticketId = ticket.getId();
+            status = ticket.getStatus();
+            orderId = ticket.getOrderId();
+            failureMessage = ticket.getFailureMessage();
+            acceptedAt = ticket.getAcceptedAt();
+        }
+    }
 }
@@ -1,17 +1,25 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -22,11 +30,13 @@ import java.util.stream.Collectors;
  * Order -> Member
  * Order -> Delivery
  */
+@Validated // @RequestParam 검증(@Min, @Max) -> 실패하면 400 (ApiExceptionHandler)
 @RestController
 @RequiredArgsConstructor
 public class OrderSimpleApiController {
-    private final OrderRepository orderRepository;
+    private final OrderQueryService orderQueryService;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderService orderService;
 
     /**
      * Order entity 직접 노출
@@ -37,12 +47,9 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch()); // orderSearch를 그냥 넘기면 검색 조건이 없기때문에 order 목록을 모두 가져온다.
-        for (Order order : all) {
-            order.getMember().getName(); // getMember()까지는 프록시 객체(db에 쿼리가 안 날라감)인데 getName을 하면 db에서 조회(member에 쿼리를 날림) -> Lazy 강제 초기화
-            order.getDelivery().getAddress(); // Lazy 강제 초기화
-        }
-        return all;
+        // orderSearch를 그냥 넘기면 검색 조건이 없기때문에 order 목록을 모두 가져온다.
+        // getMember()까지는 프록시 객체(db에 쿼리가 안 날라감)인데 getName을 하면 db에서 조회(member에 쿼리를 날림) -> Lazy 강제 초기화 (트랜잭션 안에서)
+        return orderQueryService.findOrdersInitialized(new OrderSearch(), false);
     }
 
     /**
@@ -51,13 +58,8 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> ordersV2() {
-        // ORDER 2개 조회
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
-
-        // loop를 돌면서 lazy 초기화 객체 조회 (member, delivery)
-        return orders.stream()
-                .map(SimpleOrderDto::new) // .map(o -> new SimpleOrderDto(o))와 같음
-                .collect(Collectors.toList()); // 조회한 order list를 SimpleOrderDto로 변환
+        // ORDER 2개 조회 -> loop를 돌면서 lazy 초기화 객체 조회 (member, delivery)
+        return orderQueryService.findOrders(new OrderSearch(), SimpleOrderDto::new); // 조회한 order list를 SimpleOrderDto로 변환
         // 총 쿼리 5번 나감 -> N + 1의 문제 (1 + N)
         // => N은 2
         // 1 + 회원 N + 배송 N = 5
@@ -69,10 +71,7 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery();
-        return orders.stream()
-                .map(SimpleOrderDto::new)
-                .collect(Collectors.toList());
+        return orderQueryService.findAllWithMemberDelivery(SimpleOrderDto::new);
     }
 
     /**
@@ -86,6 +85,36 @@ public class OrderSimpleApiController {
         return orderSimpleQueryRepository.findOrderDtos();
     }
 
+    /**
+     * v4의 keyset 페이징 버전 -> order id 기준으로 seek 하기 때문에 깊은 페이지도 조회 비용이 같다.
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 1 ~ 1000
+     * @return CursorResult<List<OrderSimpleQueryDto>>
+     */
+    @GetMapping("/api/v4.1/simple-orders")
+    public CursorResult<List<OrderSimpleQueryDto>> ordersV4_page(@RequestParam(value = "cursor", required = false) String cursor,
+                                                                 @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        List<OrderSimpleQueryDto> result = orderSimpleQueryRepository.findOrderDtos(IdCursor.decode(cursor), limit);
+        return CursorResult.of(result, OrderSimpleQueryDto::getOrderId, limit);
+    }
+
+    /**
+     * 주문 요약(order_summary) 테이블 하나만 조회 -> 조인, 지연 로딩 없이 sql 1번
+     * 회원명(앞부분 일치), 주문 상태로 검색 가능
+     * @param cursor 이전 응답의 nextCursor (첫 페이지면 생략)
+     * @param limit 1 ~ 1000
+     * @return CursorResult<List<OrderSummaryDto>>
+     */
+    @GetMapping("/api/v5/simple-orders")
+    public CursorResult<List<OrderSummaryDto>> ordersV5(@ModelAttribute OrderSearch orderSearch,
+                                                        @RequestParam(value = "cursor", required = false) String cursor,
+                                                        @RequestParam(value = "limit", defaultValue = "100") @Min(1) @Max(CursorResult.MAX_LIMIT) int limit) {
+        List<OrderSummaryDto> result = orderService.findOrderSummaries(orderSearch, IdCursor.decode(cursor), limit).stream()
+                .map(OrderSummaryDto::new)
+                .collect(Collectors.toList());
+        return CursorResult.of(result, OrderSummaryDto::getOrderId, limit);
+    }
+
     @Data
     static class SimpleOrderDto {
         private Long orderId;
@@ -102,4 +131,25 @@ public class OrderSimpleApiController {
             address = order.getDelivery().getAddress(); // LAZY 초기화
         }
     }
+
+    @Data
+    static class OrderSummaryDto {
+        private Long orderId;
+        private String name;
+        private LocalDateTime orderDate;
+        private OrderStatus orderStatus;
+        private int itemCount;
+        private int totalPrice;
+        private DeliveryStatus deliveryStatus;
+
+        public OrderSummaryDto(OrderSummary summary) {
+            orderId = summary.getOrderId();
+            name = summary.getMemberName();
+            orderDate = summary.getOrderDate();
+            orderStatus = summary.getStatus();
+            itemCount = summary.getItemCount();
+            totalPrice = summary.getTotalPrice();
+            deliveryStatus = summary.getDeliveryStatus();
+        }
+    }
 }
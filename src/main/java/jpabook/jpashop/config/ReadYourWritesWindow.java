@@ -0,0 +1,100 @@
+package jpabook.jpashop.config;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * read-your-writes: 쓰기를 커밋한 클라이언트는 windowMillis 동안 조회도 primary에서 한다.
+ * -> replica 복제 지연 때문에 방금 저장한 데이터가 안 보이는 문제를 막는다.
+ * 클라이언트 구분은 쿠키로 하고, 같은 요청 안에서 이어지는 조회는 request attribute로 판단한다.
+ */
+public class ReadYourWritesWindow {
+    static final String COOKIE_NAME = "jpashop-rw-until";
+    private static final String ATTRIBUTE_NAME = ReadYourWritesWindow.class.getName() + ".until";
+    private static final Object SYNCHRONIZATION_KEY = new Object();
+
+    private final long windowMillis;
+
+    public ReadYourWritesWindow(long windowMillis) {
+        this.windowMillis = windowMillis;
+    }
+
+    /**
+     * 현재 쓰기 트랜잭션이 커밋되면 window를 시작한다. (트랜잭션당 한 번만 등록)
+     */
+    void markWrite() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(SYNCHRONIZATION_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(SYNCHRONIZATION_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                start();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(SYNCHRONIZATION_KEY);
+            }
+        });
+    }
+
+    boolean isActive() {
+        HttpServletRequest request = currentRequest();
+        if (request == null) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Object until = request.getAttribute(ATTRIBUTE_NAME);
+        if (until instanceof Long && (Long) until > now) {
+            return true;
+        }
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return false;
+        }
+        for (Cookie cookie : cookies) {
+            if (COOKIE_NAME.equals(cookie.getName())) {
+                try {
+                    return Long.parseLong(cookie.getValue()) > now;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void start() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return; // 웹 요청이 아니면(배치, 스케줄러) 구분할 클라이언트가 없다.
+        }
+        long until = System.currentTimeMillis() + windowMillis;
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        request.setAttribute(ATTRIBUTE_NAME, until);
+
+        HttpServletResponse response = ((ServletRequestAttributes) attributes).getResponse();
+        if (response != null && !response.isCommitted()) {
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(until));
+            cookie.setPath("/");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, windowMillis / 1000));
+            response.addCookie(cookie);
+        }
+    }
+
+    private HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? ((ServletRequestAttributes) attributes).getRequest() : null;
+    }
+}
@@ -0,0 +1,78 @@
+package jpabook.jpashop.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * jpashop.datasource.replica.url을 설정하면 readOnly 트랜잭션을 replica로 보낸다.
+ * -> 서비스가 기본으로 @Transactional(readOnly = true)라서 조회(findOrders, findMembers, findItems 등)는 replica,
+ *    @Transactional이 따로 붙은 쓰기(order, cancelOrder, join, updateItem 등)는 primary로 간다.
+ * 설정하지 않으면 이 설정은 동작하지 않고 spring.datasource 하나만 사용한다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.datasource.replica", name = "url")
+public class ReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+    }
+
+    @Bean
+    @ConfigurationProperties("jpashop.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${jpashop.datasource.replica.url}") String url,
+                                              @Value("${jpashop.datasource.replica.username:}") String username,
+                                              @Value("${jpashop.datasource.replica.password:}") String password,
+                                              DataSourceProperties properties) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthChecker replicaHealthChecker(@Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return new ReplicaHealthChecker(replicaDataSource);
+    }
+
+    @Bean
+    @Primary // JPA가 사용하는 DataSource
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaHealthChecker replicaHealthChecker,
+                                 @Value("${jpashop.datasource.replica.read-your-writes-ms:3000}") long readYourWritesMillis) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(ReplicaRoutingDataSource.PRIMARY, primaryDataSource);
+        targets.put(ReplicaRoutingDataSource.REPLICA, replicaDataSource);
+
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(replicaHealthChecker,
+                new ReadYourWritesWindow(readYourWritesMillis));
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+
+        // 실제 커넥션은 첫 sql을 실행할 때 가져온다. -> 그때는 트랜잭션의 readOnly 여부가 정해져 있다.
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * replica 상태를 주기적으로 확인한다. -> 응답이 없으면 조회도 primary로 보낸다.
+ */
+@Slf4j
+public class ReplicaHealthChecker {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource replicaDataSource;
+    private volatile boolean healthy = true;
+
+    public ReplicaHealthChecker(DataSource replicaDataSource) {
+        this.replicaDataSource = replicaDataSource;
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    @Scheduled(fixedDelayString = "${jpashop.datasource.replica.health-check-interval-ms:5000}")
+    public void check() {
+        boolean result;
+        try (Connection connection = replicaDataSource.getConnection()) {
+            result = connection.isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            result = false;
+        }
+
+        if (result != healthy) {
+            log.warn("replica 상태 변경: {} -> 조회를 {}로 보냅니다.", result ? "UP" : "DOWN", result ? "replica" : "primary");
+        }
+        healthy = result;
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션 성격에 따라 커넥션을 가져올 DataSource를 고른다.
+ * - readOnly 트랜잭션 -> replica (replica가 죽었거나, 방금 쓰기를 한 클라이언트면 primary)
+ * - 그 외(쓰기, 트랜잭션 없음) -> primary
+ * 트랜잭션 시작 시점에는 readOnly 여부가 아직 정해지지 않기 때문에 LazyConnectionDataSourceProxy로 감싸서 써야 한다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    private final ReplicaHealthChecker replicaHealthChecker;
+    private final ReadYourWritesWindow readYourWritesWindow;
+
+    public ReplicaRoutingDataSource(ReplicaHealthChecker replicaHealthChecker, ReadYourWritesWindow readYourWritesWindow) {
+        this.replicaHealthChecker = replicaHealthChecker;
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                readYourWritesWindow.markWrite(); // 커밋되면 한동안 이 클라이언트의 조회도 primary로 보낸다.
+            }
+            return PRIMARY;
+        }
+        if (readYourWritesWindow.isActive() || !replicaHealthChecker.isHealthy()) {
+            return PRIMARY;
+        }
+        return REPLICA;
+    }
+}
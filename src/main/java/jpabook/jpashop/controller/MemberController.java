@@ -2,6 +2,8 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
 import jpabook.jpashop.service.MemberService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -9,6 +11,7 @@ import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -16,6 +19,8 @@ import java.util.List;
 @Controller
 @RequiredArgsConstructor
 public class MemberController {
+    private static final int PAGE_SIZE = 50;
+
     private final MemberService memberService;
 
     @GetMapping("/members/new")
@@ -40,9 +45,15 @@ public class MemberController {
     }
 
     @GetMapping("/members")
-    public String list(Model model) {
-        List<Member> members = memberService.findMembers();
+    public String list(@RequestParam(value = "cursor", required = false) Long cursor, Model model) {
+        // 엔티티 대신 화면에 그리는 컬럼만 dto로, member id 기준 keyset 페이징
+        List<MemberQueryDto> members = memberService.findMemberPage(MemberQueryRepository.ALL_FIELDS, cursor, PAGE_SIZE + 1); // 1건 더 조회해서 다음 페이지 여부 확인
+        boolean hasNext = members.size() > PAGE_SIZE;
+        if (hasNext) {
+            members = members.subList(0, PAGE_SIZE);
+        }
         model.addAttribute("members", members);
+        model.addAttribute("nextCursor", hasNext ? members.get(members.size() - 1).getMemberId() : null);
         return "members/memberList";
     }
 }
@@ -2,10 +2,11 @@ package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.Item;
 import jpabook.jpashop.domain.Member;
-import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderSummary;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderFacade;
 import jpabook.jpashop.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
@@ -17,9 +18,12 @@ import java.util.List;
 @Controller
 @RequiredArgsConstructor
 public class OrderController {
+    private static final int PAGE_SIZE = 50;
+
     private final OrderService orderService;
     private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderFacade orderFacade;
 
     @GetMapping("/order")
     public String createForm(Model model) {
@@ -35,21 +39,28 @@ public class OrderController {
     public String order(@RequestParam("memberId") Long memberId,
                         @RequestParam("itemId") Long itemId,
                         @RequestParam("count") int count) {
-        orderService.order(memberId, itemId, count);
+        orderFacade.order(memberId, itemId, count); // 낙관적 락 충돌 시 재시도
         return "redirect:/orders";
     }
 
     @GetMapping("/orders")
-    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
+    public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch,
+                            @RequestParam(value = "cursor", required = false) Long cursor, Model model) {
         // @ModelAttribute: model 박스에 자동으로 담기는 역할 -> model.addAttribute("orderSearch", orderSearch);를 해주는 거라고 보면 된다.
-        List<Order> orders = orderService.findOrders(orderSearch);
+        // 주문 요약(order_summary) 한 테이블만 조회 -> 조인 없이 쿼리 1번, 화면을 그리는 동안 지연 로딩 쿼리가 나가지 않는다.
+        List<OrderSummary> orders = orderService.findOrderList(orderSearch, cursor, PAGE_SIZE + 1); // 1건 더 조회해서 다음 페이지 여부 확인
+        boolean hasNext = orders.size() > PAGE_SIZE;
+        if (hasNext) {
+            orders = orders.subList(0, PAGE_SIZE);
+        }
         model.addAttribute("orders", orders);
+        model.addAttribute("nextCursor", hasNext ? orders.get(orders.size() - 1).getOrderId() : null);
         return "order/orderList";
     }
 
     @PostMapping("/orders/{orderId}/cancel")
     public String cancelOrder(@PathVariable("orderId") Long orderId) {
-        orderService.cancelOrder(orderId);
+        orderFacade.cancelOrder(orderId);
         return "redirect:/orders";
     }
 }
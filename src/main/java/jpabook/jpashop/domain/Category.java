@@ -2,12 +2,16 @@ package jpabook.jpashop.domain;
 
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@Table(indexes = @Index(name = "idx_category_lft_rgt", columnList = "lft, rgt")) // 하위 카테고리 전체 = lft 범위 조회
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category")
 @Getter
 @Setter
 public class Category {
@@ -18,10 +22,12 @@ public class Category {
 
     private String name;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category-items") // 컬렉션은 id 목록만 캐시된다.
     @ManyToMany // 실무에서는 쓸일이 없다. 중간 테이블(JoinTable)에 FK말고 다른 컬럼을 추가할 수 없고, 세밀하게 쿼리하기 어렵다. 중간 엔티티를 만들어서 관계를 해소해서 사용하자.
     @JoinTable(name = "category_item",
             joinColumns = @JoinColumn(name = "category_id"),
-            inverseJoinColumns = @JoinColumn(name = "item_id")
+            inverseJoinColumns = @JoinColumn(name = "item_id"),
+            indexes = @Index(name = "idx_category_item_category_id", columnList = "category_id, item_id")
     )
     private List<Item> items = new ArrayList<>();
 
@@ -30,12 +36,28 @@ public class Category {
     @JoinColumn(name = "parent_id")
     private Category parent;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "category-child")
     @OneToMany(mappedBy = "parent")
     private List<Category> child = new ArrayList<>();
 
+    // nested set 번호 -> 하위 카테고리의 lft, rgt는 모두 (lft, rgt) 구간 안에 있다. (CategoryService에서 다시 매긴다.)
+    private int lft;
+    private int rgt;
+    private int depth;
+
     //==연관관계 메서드==//
     public void addChildCategory(Category child) {
         this.child.add(child);
         child.setParent(this);
     }
+
+    //==비즈니스 로직==//
+    /**
+     * nested set 번호 변경 -> 값이 같으면 변경 감지에 걸리지 않는다.
+     */
+    public void renumber(int lft, int rgt, int depth) {
+        this.lft = lft;
+        this.rgt = rgt;
+        this.depth = depth;
+    }
 }
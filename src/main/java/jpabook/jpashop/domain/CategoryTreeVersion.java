@@ -0,0 +1,39 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/**
+ * 카테고리 트리 버전 (행 1개)
+ * - 트리 모양을 바꾸는 트랜잭션은 이 행을 비관적 락(select ... for update)으로 잡고 버전을 올린다.
+ *   -> 번호 다시 매기기(전체 카테고리 대상)가 인스턴스와 상관없이 한 번에 하나씩만 실행된다.
+ * - 각 인스턴스의 CategoryTreeCache는 버전만 주기적으로 읽어서 바뀌었으면 트리를 다시 만든다.
+ */
+@Entity
+@Table(name = "category_tree_version")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class CategoryTreeVersion {
+    public static final Long ID = 1L;
+
+    @Id
+    @Column(name = "category_tree_version_id")
+    private Long id;
+
+    private long version;
+
+    //==생성 메서드==//
+    public static CategoryTreeVersion create() {
+        CategoryTreeVersion treeVersion = new CategoryTreeVersion();
+        treeVersion.id = ID;
+        return treeVersion;
+    }
+
+    //==비즈니스 로직==//
+    public void increase() {
+        this.version++;
+    }
+}
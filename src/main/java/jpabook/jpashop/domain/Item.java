@@ -3,6 +3,13 @@ package jpabook.jpashop.domain;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.search.engine.backend.types.Projectable;
+import org.hibernate.search.engine.backend.types.Sortable;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.GenericField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
 
 import javax.persistence.*;
 import java.util.ArrayList;
@@ -11,6 +18,9 @@ import java.util.List;
 @Entity
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "dtype") // 생략 가능 -> 없어도 dtype column 생성 된다.
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "item") // 2차 캐시: 하위 타입(Book, Album, Movie)도 같은 region을 사용
+// READ_WRITE: 수정 중인 항목은 soft lock이 걸려서 커밋 전까지 DB에서 읽는다. -> 재고가 바뀐 뒤 이전 값을 읽지 않는다.
+@Indexed // 검색 인덱스: 하위 타입(Book, Album, Movie)마다 인덱스가 생긴다. 색인된 필드가 바뀐 경우에만 커밋 시 다시 색인 (재고 변경은 제외)
 @Getter
 @Setter
 public abstract class Item {
@@ -19,10 +29,15 @@ public abstract class Item {
     @Column(name = "item_id")
     private Long id;
 
+    @FullTextField(projectable = Projectable.YES) // 검색 결과를 인덱스에서 바로 꺼낸다. (item 테이블 조회 없음)
     private String name;
+    @GenericField(projectable = Projectable.YES, sortable = Sortable.YES)
     private int price;
     private int stockQuantity; // 재고 물량
 
+    @Version // 낙관적 락: 수정할 때 버전이 다르면(다른 트랜잭션이 먼저 수정) OptimisticLockException 발생
+    private Long version;
+
     @ManyToMany(mappedBy = "items")
     private List<Category> categories = new ArrayList<>();
 
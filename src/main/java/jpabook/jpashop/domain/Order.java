@@ -12,13 +12,17 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_status_order_date", columnList = "status, order_date"), // 주문 상태 검색 + 주문일 정렬
+        @Index(name = "idx_orders_member_id", columnList = "member_id") // 회원명 검색 시 member -> orders 조인
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_seq_generator")
+    @SequenceGenerator(name = "order_seq_generator", sequenceName = "orders_seq", allocationSize = 50) // IDENTITY는 insert 배치가 안된다. -> 시퀀스를 50개씩 미리 받아두고(pooled) 메모리에서 id 할당
     @Column(name = "order_id")
     private Long id;
 
@@ -41,6 +45,9 @@ public class Order {
     @Enumerated(EnumType.STRING)
     private OrderStatus status; // 주문 상태 ORDER, CANCEL
 
+    @Version // 동시에 같은 주문을 취소하는 등의 갱신 분실을 막는다.
+    private Long version;
+
     //==연관관계 메서드==// -> 양방향일 때 추가해 준다.
     public void setMember(Member member) {
         this.member = member;
@@ -76,14 +83,22 @@ public class Order {
      * 주문 취소
      */
     public void cancel() { // 주문 취소
+        cancelWithoutRestock();
+        for (OrderItem orderItem : orderItems) {
+            orderItem.cancel();
+        }
+    }
+
+    /**
+     * 재고 원복 없이 주문 상태만 취소로 변경
+     * 재고를 StockReservationService에서 관리할 때 사용한다. -> 재고 반납은 서비스에서 처리
+     */
+    public void cancelWithoutRestock() {
         if (delivery.getStatus() == DeliveryStatus.COMP) {
             throw new IllegalStateException("이미 배송 완료된 상품은 취소가 불가능합니다.");
         }
 
         this.setStatus(OrderStatus.CANCEL);
-        for (OrderItem orderItem : orderItems) {
-            orderItem.cancel();
-        }
     }
 
     //==조회 로직==//
@@ -0,0 +1,13 @@
+package jpabook.jpashop.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문 취소 이벤트 -> 주문을 취소한 트랜잭션 안에서 발행된다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderCancelledEvent {
+    private final Order order;
+}
@@ -0,0 +1,13 @@
+package jpabook.jpashop.domain;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 주문 생성 이벤트 -> 주문을 저장한 트랜잭션 안에서 발행된다.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OrderCreatedEvent {
+    private final Order order;
+}
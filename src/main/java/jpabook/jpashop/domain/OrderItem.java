@@ -9,12 +9,14 @@ import lombok.Setter;
 import javax.persistence.*;
 
 @Entity
+@Table(name = "order_item", indexes = @Index(name = "idx_order_item_order_id", columnList = "order_id")) // 주문별 주문상품 조회(in 쿼리, batch fetch)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED) // 기본 생성자 범위 설정
 public class OrderItem {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_item_seq_generator")
+    @SequenceGenerator(name = "order_item_seq_generator", sequenceName = "order_item_seq", allocationSize = 50)
     @Column(name = "order_item_id")
     private Long id;
 
@@ -35,12 +37,20 @@ public class OrderItem {
 
     //==생성 메서드==/
     public static OrderItem createOrderItem(Item item, int orderPrice, int count) {
+        OrderItem orderItem = createReservedOrderItem(item, orderPrice, count);
+
+        item.removeStock(count);
+        return orderItem;
+    }
+
+    /**
+     * 재고를 이미 선점한 주문 상품 생성 -> Item의 재고는 건드리지 않는다. (StockReservationService 참고)
+     */
+    public static OrderItem createReservedOrderItem(Item item, int orderPrice, int count) {
         OrderItem orderItem = new OrderItem();
         orderItem.setItem(item);
         orderItem.setOrderPrice(orderPrice);
         orderItem.setCount(count);
-
-        item.removeStock(count);
         return orderItem;
     }
 
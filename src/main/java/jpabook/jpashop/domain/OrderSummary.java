@@ -0,0 +1,79 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록/검색 전용 읽기 모델 (order_summary)
+ * 주문 생성/취소 이벤트를 받아 OrderSummaryUpdater가 같은 트랜잭션 안에서 갱신한다.
+ * -> 목록 조회는 orders, member, delivery, order_item 조인 없이 이 테이블 하나만 읽는다.
+ */
+@Entity
+@Table(name = "order_summary", indexes = {
+        @Index(name = "idx_order_summary_status", columnList = "status, order_id"), // 주문 상태 검색 + keyset 페이징
+        @Index(name = "idx_order_summary_member_name", columnList = "member_name, order_id"), // 회원명(앞부분 일치) 검색
+        @Index(name = "idx_order_summary_member_id", columnList = "member_id") // 회원명 변경 시 갱신
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderSummary {
+    @Id // order id를 그대로 사용
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "member_id")
+    private Long memberId;
+
+    @Column(name = "member_name")
+    private String memberName;
+
+    private LocalDateTime orderDate;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    private int itemCount; // 주문 수량 합계
+
+    private int totalPrice;
+
+    // 대표상품 = 첫 번째 주문상품 (목록 화면용, 주문 후에는 바뀌지 않는다.)
+    private String itemName;
+
+    private int orderPrice;
+
+    private int count;
+
+    @Enumerated(EnumType.STRING)
+    private DeliveryStatus deliveryStatus;
+
+    //==생성 메서드==//
+    public static OrderSummary from(Order order) {
+        OrderSummary summary = new OrderSummary();
+        summary.orderId = order.getId();
+        summary.memberId = order.getMember().getId();
+        summary.memberName = order.getMember().getName();
+        summary.orderDate = order.getOrderDate();
+        summary.status = order.getStatus();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            summary.itemCount += orderItem.getCount();
+        }
+        summary.totalPrice = order.getTotalPrice();
+        if (!order.getOrderItems().isEmpty()) {
+            OrderItem representative = order.getOrderItems().get(0);
+            summary.itemName = representative.getItem().getName();
+            summary.orderPrice = representative.getOrderPrice();
+            summary.count = representative.getCount();
+        }
+        summary.deliveryStatus = order.getDelivery().getStatus();
+        return summary;
+    }
+
+    //==비즈니스 로직==//
+    public void cancel() {
+        this.status = OrderStatus.CANCEL;
+    }
+}
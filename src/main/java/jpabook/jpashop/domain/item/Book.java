@@ -3,6 +3,7 @@ package jpabook.jpashop.domain.item;
 import jpabook.jpashop.domain.Item;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 
 import javax.persistence.DiscriminatorValue;
 import javax.persistence.Entity;
@@ -12,6 +13,8 @@ import javax.persistence.Entity;
 @Getter
 @Setter
 public class Book extends Item {
+    @FullTextField
     private String author;
+    @FullTextField
     private String isbn;
 }
@@ -0,0 +1,22 @@
+package jpabook.jpashop.exception;
+
+/**
+ * 클라이언트가 잘못된 값을 보냈을 때 (ex. 해석할 수 없는 커서) -> api에서는 400 Bad Request로 응답한다.
+ */
+public class InvalidRequestException extends IllegalArgumentException {
+    public InvalidRequestException() {
+        super();
+    }
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+
+    public InvalidRequestException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public InvalidRequestException(Throwable cause) {
+        super(cause);
+    }
+}
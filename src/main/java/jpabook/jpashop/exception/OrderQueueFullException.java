@@ -0,0 +1,26 @@
+package jpabook.jpashop.exception;
+
+/**
+ * 비동기 주문 대기열이 가득 찼을 때 -> 429 Too Many Requests로 응답한다.
+ */
+public class OrderQueueFullException extends RuntimeException {
+    public OrderQueueFullException() {
+        super();
+    }
+
+    public OrderQueueFullException(String message) {
+        super(message);
+    }
+
+    public OrderQueueFullException(String message, Throwable cause) {
+        super(message, cause);
+    }
+
+    public OrderQueueFullException(Throwable cause) {
+        super(cause);
+    }
+
+    protected OrderQueueFullException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
+        super(message, cause, enableSuppression, writableStackTrace);
+    }
+}
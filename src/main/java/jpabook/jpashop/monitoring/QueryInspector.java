@@ -0,0 +1,128 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.function.Supplier;
+
+/**
+ * 현재 스레드에서 나가는 sql을 모아주는 검사기
+ * 요청 단위는 QueryInspectorFilter가 열고 닫고, 테스트에서는 inspect로 원하는 구간만 잴 수 있다.
+ * 요청을 대신해서 다른 스레드에서 조회하는 경우(ChunkedInLoader, ParallelQueryExecutor)는 propagate로 감싸서 같은 통계에 쌓는다.
+ * 로더가 일부러 같은 sql을 반복하는 쿼리(덩어리 in 조회 등)는 planned로 감싸서 N + 1 의심에서 뺀다.
+ * ex) QueryStats stats = QueryInspector.inspect(() -> orderQueryRepository.findAllByDto_optimization());
+ *     assertTrue(stats.getStatementCount() <= 2);
+ */
+public final class QueryInspector {
+    private static final ThreadLocal<QueryStats> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Boolean> PLANNED = new ThreadLocal<>();
+
+    private QueryInspector() {
+    }
+
+    public static QueryStats begin() {
+        return begin(false);
+    }
+
+    private static QueryStats begin(boolean captureSql) {
+        QueryStats stats = new QueryStats(captureSql);
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    public static QueryStats end() {
+        QueryStats stats = CURRENT.get();
+        CURRENT.remove();
+        return stats;
+    }
+
+    /**
+     * @return 검사 중이 아니면 null
+     */
+    public static QueryStats current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * 지금 검사 중인 통계를 task를 실행하는 스레드에도 걸어준다. (검사 중이 아니면 task 그대로)
+     * -> 작업 스레드에서 나간 sql, 빌린 커넥션도 요청의 jdbc.request.*, X-Connection-Hold-Ms에 포함된다.
+     */
+    public static Runnable propagate(Runnable task) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> runWith(stats, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    public static <T> Supplier<T> propagate(Supplier<T> task) {
+        QueryStats stats = CURRENT.get();
+        if (stats == null) {
+            return task;
+        }
+        return () -> runWith(stats, task);
+    }
+
+    /**
+     * query 안에서 나간 sql은 실행 횟수, 시간에는 포함하고 N + 1 의심(같은 shape 반복)에서는 뺀다.
+     * 덩어리 수만큼 반복되는 것이 정상인 로더 쿼리용 -> query 안에서 지연 로딩 등으로 나간 sql도 같이 빠지므로 넓게 감싸지 않는다.
+     */
+    public static <T> T planned(Supplier<T> query) {
+        if (PLANNED.get() != null) {
+            return query.get(); // 이미 감싼 구간 (중첩 로더)
+        }
+        PLANNED.set(Boolean.TRUE);
+        try {
+            return query.get();
+        } finally {
+            PLANNED.remove();
+        }
+    }
+
+    static boolean isPlanned() {
+        return PLANNED.get() != null;
+    }
+
+    private static <T> T runWith(QueryStats stats, Supplier<T> task) {
+        QueryStats previous = CURRENT.get(); // 풀 스레드이므로 보통 null
+        CURRENT.set(stats);
+        try {
+            return task.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+
+    /**
+     * action을 실행하는 동안 나간 sql 통계 (이미 검사 중이었다면 끝난 뒤 이전 통계로 되돌린다)
+     */
+    public static QueryStats inspect(Runnable action) {
+        return inspect(action, false);
+    }
+
+    /**
+     * inspect + 실행된 sql(파라미터 값 포함)까지 모은다. -> 실행 계획(explain) 검사 등 테스트용
+     */
+    public static QueryStats capture(Runnable action) {
+        return inspect(action, true);
+    }
+
+    private static QueryStats inspect(Runnable action, boolean captureSql) {
+        QueryStats outer = CURRENT.get();
+        QueryStats stats = begin(captureSql);
+        try {
+            action.run();
+            return stats;
+        } finally {
+            if (outer == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(outer);
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package jpabook.jpashop.monitoring;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청마다 sql 수, jdbc 시간, 읽은 row 수, 커넥션 점유 시간을 모아서
+ * - 메트릭(jdbc.request.*)으로 endpoint별로 기록하고
+ * - response-headers가 켜져 있으면(개발용, local 프로필) X-Query-* 응답 헤더로 내려준다.
+ * 같은 shape의 sql이 n-plus-one-threshold번 이상 나가면 N + 1로 의심하고 로그를 남긴다. (ex. /api/v2/orders, /api/v4/orders, 로더의 덩어리 조회는 제외)
+ * 응답 헤더를 붙이려면 body를 버퍼링해야 하는데, 응답을 바로바로 써야 하는 handler는 쓰기 전에 streaming(request)를 호출한다.
+ * -> 그 뒤로는 버퍼를 거치지 않고 바로 쓴다. (X-Query-* 헤더는 빠지고 메트릭만 남는다)
+ */
+@Slf4j
+@Component
+public class QueryInspectorFilter extends OncePerRequestFilter {
+    private static final String STREAMING_ATTRIBUTE = QueryInspectorFilter.class.getName() + ".STREAMING";
+
+    private final MeterRegistry meterRegistry;
+    private final boolean responseHeaders;
+    private final int nPlusOneThreshold;
+
+    public QueryInspectorFilter(MeterRegistry meterRegistry,
+                                @Value("${jpashop.query-inspector.response-headers:false}") boolean responseHeaders,
+                                @Value("${jpashop.query-inspector.n-plus-one-threshold:2}") int nPlusOneThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.responseHeaders = responseHeaders;
+        this.nPlusOneThreshold = nPlusOneThreshold;
+    }
+
+    /**
+     * 이 요청의 응답을 버퍼링하지 않는다. body를 쓰기 전에 호출해야 한다. (ex. 전체 주문 export)
+     */
+    public static void streaming(HttpServletRequest request) {
+        request.setAttribute(STREAMING_ATTRIBUTE, Boolean.TRUE);
+    }
+
+    private static boolean isStreaming(HttpServletRequest request) {
+        return request.getAttribute(STREAMING_ATTRIBUTE) != null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        // 헤더는 body를 쓰기 전에 붙여야 하므로 개발용으로 켰을 때만 응답을 버퍼링한다. (streaming(request)를 호출한 handler는 제외)
+        HttpServletResponse target = responseHeaders ? new InspectingResponseWrapper(request, response) : response;
+
+        QueryInspector.begin();
+        try {
+            filterChain.doFilter(request, target);
+        } finally {
+            QueryStats stats = QueryInspector.end();
+            Map<String, Integer> suspected = stats.getSuspectedNPlusOne(nPlusOneThreshold);
+            record(request, stats, suspected);
+
+            if (responseHeaders && !isStreaming(request)) {
+                target.setHeader("X-Query-Count", String.valueOf(stats.getStatementCount()));
+                target.setHeader("X-Query-Time-Ms", String.valueOf(stats.getJdbcTimeMillis()));
+                target.setHeader("X-Query-Rows", String.valueOf(stats.getRowCount()));
+                target.setHeader("X-Query-N-Plus-One", String.valueOf(suspected.size()));
+                target.setHeader("X-Connection-Hold-Ms", String.valueOf(TimeUnit.NANOSECONDS.toMillis(stats.getConnectionHoldNanos())));
+            }
+            if (target instanceof InspectingResponseWrapper) {
+                ((InspectingResponseWrapper) target).copyBodyToResponse(); // streaming이면 버퍼가 비어 있다.
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request, QueryStats stats, Map<String, Integer> suspected) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        Tags tags = Tags.of("uri", pattern == null ? "UNKNOWN" : pattern.toString(), "method", request.getMethod());
+
+        meterRegistry.summary("jdbc.request.statements", tags).record(stats.getStatementCount());
+        meterRegistry.summary("jdbc.request.rows", tags).record(stats.getRowCount());
+        meterRegistry.timer("jdbc.request.time", tags).record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+        if (stats.getConnectionCount() > 0) {
+            // 요청이 커넥션을 잡고 있던 시간의 합 -> OSIV off면 트랜잭션 구간만, on이면 렌더링까지 (병렬 조회 작업 스레드의 커넥션 포함)
+            meterRegistry.timer("jdbc.request.connection.hold", tags).record(stats.getConnectionHoldNanos(), TimeUnit.NANOSECONDS);
+        }
+        if (!suspected.isEmpty()) {
+            meterRegistry.counter("jdbc.request.n_plus_one", tags).increment();
+            log.warn("N + 1 의심: {} {} -> {}", request.getMethod(), request.getRequestURI(), suspected);
+        }
+    }
+
+    /**
+     * 기본은 ContentCachingResponseWrapper처럼 body를 버퍼링하고, streaming(request) 이후에는 원래 응답에 바로 쓴다.
+     */
+    private static class InspectingResponseWrapper extends ContentCachingResponseWrapper {
+        private final HttpServletRequest request;
+
+        InspectingResponseWrapper(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            return isStreaming(request) ? getResponse().getOutputStream() : super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            return isStreaming(request) ? getResponse().getWriter() : super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (isStreaming(request)) {
+                getResponse().flushBuffer();
+            } else {
+                super.flushBuffer();
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.monitoring;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * p6spy 이벤트 리스너 -> 빈으로 등록하면 p6spy-spring-boot-starter가 알아서 붙여준다.
+ * 실행된 sql과 jdbc 시간, 읽은 row 수, 커넥션을 잡고 있던 시간을 현재 스레드의 QueryStats에 쌓는다.
+ */
+@Component
+public class QueryInspectorListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryStats stats = QueryInspector.current();
+        if (stats != null) {
+            stats.addStatement(statementInformation.getSql(), timeElapsedNanos);
+            if (stats.isCapturingSql()) {
+                stats.addExecutedSql(statementInformation.getSqlWithValues());
+            }
+        }
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos, boolean hasNext, SQLException e) {
+        QueryStats stats = QueryInspector.current();
+        if (stats != null && hasNext) {
+            stats.addRow();
+        }
+    }
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        QueryStats stats = QueryInspector.current();
+        if (stats != null && e == null) {
+            stats.connectionAcquired(connectionInformation);
+        }
+    }
+
+    @Override
+    public void onAfterConnectionClose(ConnectionInformation connectionInformation, SQLException e) {
+        QueryStats stats = QueryInspector.current();
+        if (stats != null) {
+            stats.connectionReleased(connectionInformation); // 풀에 반납
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package jpabook.jpashop.monitoring;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 요청(또는 검사 구간) 하나에서 실행된 jdbc 통계
+ * statement shape: 파라미터가 ?로 남아있는 sql -> 같은 shape가 반복되면 루프 안에서 쿼리를 날린 것(N + 1)으로 의심한다.
+ * (QueryInspector.planned 구간의 sql은 의심 대상에서 뺀다.)
+ * 병렬 조회 작업 스레드들이 같은 통계에 동시에 쌓으므로 모든 메서드를 synchronized로 둔다. (jdbc 호출에 비하면 무시할 만한 비용)
+ */
+public class QueryStats {
+    private int statementCount;
+    private long jdbcNanos;
+    private long rowCount;
+    private final Map<String, Integer> shapeCounts = new LinkedHashMap<>();
+    private final Map<Object, Long> openConnections = new IdentityHashMap<>(); // 커넥션 -> 빌린 시각(nanoTime)
+    private int connectionCount;
+    private long connectionHoldNanos;
+    private final List<String> executedSql; // 파라미터 값이 채워진 sql (capture로 검사할 때만 모은다)
+
+    QueryStats(boolean captureSql) {
+        this.executedSql = captureSql ? new ArrayList<>() : null;
+    }
+
+    boolean isCapturingSql() {
+        return executedSql != null;
+    }
+
+    synchronized void addExecutedSql(String sqlWithValues) {
+        executedSql.add(sqlWithValues);
+    }
+
+    synchronized void addStatement(String sql, long elapsedNanos) {
+        statementCount++;
+        jdbcNanos += elapsedNanos;
+        if (sql != null && !QueryInspector.isPlanned()) {
+            shapeCounts.merge(normalize(sql), 1, Integer::sum);
+        }
+    }
+
+    synchronized void addRow() {
+        rowCount++;
+    }
+
+    synchronized void connectionAcquired(Object connection) {
+        connectionCount++;
+        openConnections.put(connection, System.nanoTime());
+    }
+
+    synchronized void connectionReleased(Object connection) {
+        Long acquiredAt = openConnections.remove(connection);
+        if (acquiredAt != null) {
+            connectionHoldNanos += System.nanoTime() - acquiredAt;
+        }
+    }
+
+    public synchronized int getStatementCount() {
+        return statementCount;
+    }
+
+    public synchronized long getJdbcTimeMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(jdbcNanos);
+    }
+
+    public synchronized long getJdbcNanos() {
+        return jdbcNanos;
+    }
+
+    public synchronized long getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return 풀에서 빌린 커넥션 수
+     */
+    public synchronized int getConnectionCount() {
+        return connectionCount;
+    }
+
+    /**
+     * @return 커넥션을 빌려서 반납할 때까지 걸린 시간의 합 (아직 반납하지 않은 커넥션은 지금까지)
+     * OSIV가 켜져 있으면 응답 직렬화/화면 렌더링 시간까지 포함된다.
+     */
+    public synchronized long getConnectionHoldNanos() {
+        long now = System.nanoTime();
+        long open = openConnections.values().stream().mapToLong(acquiredAt -> now - acquiredAt).sum();
+        return connectionHoldNanos + open;
+    }
+
+    /**
+     * @return 실행된 sql (파라미터 값 포함) -> QueryInspector.capture로 검사한 경우에만 채워진다.
+     */
+    public synchronized List<String> getExecutedSql() {
+        return executedSql == null ? Collections.emptyList() : List.copyOf(executedSql);
+    }
+
+    /**
+     * @param threshold 같은 shape가 이 횟수 이상 실행되면 N + 1로 의심
+     * @return 의심되는 sql shape -> 실행 횟수
+     */
+    public synchronized Map<String, Integer> getSuspectedNPlusOne(int threshold) {
+        return shapeCounts.entrySet().stream()
+                .filter(e -> e.getValue() >= threshold)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private static String normalize(String sql) {
+        return sql.replaceAll("\\s+", " ").trim();
+    }
+}
@@ -0,0 +1,53 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 로컬 파일에 한 줄에 이벤트 하나씩(NDJSON) 이어 쓴다. -> 배송/분석 쪽은 파일을 tail 해서 읽는다.
+ */
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+    private final ObjectMapper objectMapper;
+    private final Path path;
+
+    public FileOutboxSink(ObjectMapper objectMapper,
+                          @Value("${jpashop.outbox.file.path:build/outbox/order-events.ndjson}") String path) throws IOException {
+        this.objectMapper = objectMapper;
+        this.path = Paths.get(path);
+        if (this.path.getParent() != null) {
+            Files.createDirectories(this.path.getParent());
+        }
+    }
+
+    @Override
+    public synchronized void publish(OutboxEvent event) throws IOException {
+        Map<String, Object> line = new LinkedHashMap<>();
+        line.put("id", event.getId());
+        line.put("aggregateType", event.getAggregateType());
+        line.put("aggregateId", event.getAggregateId());
+        line.put("aggregateVersion", event.getAggregateVersion());
+        line.put("eventType", event.getEventType());
+        line.put("createdAt", event.getCreatedAt().toString());
+        line.put("payload", objectMapper.readTree(event.getPayload()));
+
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write(objectMapper.writeValueAsString(line));
+            writer.newLine();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package jpabook.jpashop.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 프로세스 안의 메모리 브로커 -> 테스트나 로컬에서 발행된 이벤트를 poll로 꺼내 확인한다.
+ * 크기가 정해져 있고, 가득 차면 가장 오래된 이벤트를 버린다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "jpashop.outbox.sink", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOutboxSink implements OutboxSink {
+    private final BlockingQueue<OutboxEvent> queue;
+
+    public InMemoryOutboxSink(@Value("${jpashop.outbox.memory.capacity:10000}") int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public void publish(OutboxEvent event) {
+        while (!queue.offer(event)) {
+            OutboxEvent dropped = queue.poll();
+            if (dropped != null) {
+                log.warn("메모리 아웃박스가 가득 차서 이벤트를 버립니다. id={}", dropped.getId());
+            }
+        }
+    }
+
+    /**
+     * 발행된 이벤트를 순서대로 꺼낸다.
+     * @return 기다려도 없으면 null
+     */
+    public OutboxEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+}
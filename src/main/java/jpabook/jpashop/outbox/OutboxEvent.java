@@ -0,0 +1,56 @@
+package jpabook.jpashop.outbox;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 트랜잭셔널 아웃박스 -> 주문과 같은 트랜잭션에서 저장되고, OutboxRelay가 sink로 발행한 뒤 지운다.
+ * relay는 (aggregateType, aggregateId, aggregateVersion) 순서로 발행한다.
+ * - 같은 주문의 이벤트: aggregateVersion은 그 이벤트를 커밋할 때의 주문 version(@Version)이라서 나중 이벤트가 항상 더 크다.
+ *   -> 주문별 발행 순서가 보장된다.
+ *   id는 인스턴스마다 미리 받아둔 시퀀스 구간(allocationSize = 50)에서 나오므로 나중 이벤트가 더 작은 id를 받을 수 있어서 순서에 쓰지 않는다.
+ * - 서로 다른 주문 사이의 순서는 보장하지 않는다. (유실은 없다.)
+ */
+@Entity
+@Table(name = "outbox_event", indexes = @Index(name = "idx_outbox_event_aggregate", columnList = "aggregate_type, aggregate_id, aggregate_version")) // relay 조회 순서
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OutboxEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_event_seq_generator")
+    @SequenceGenerator(name = "outbox_event_seq_generator", sequenceName = "outbox_event_seq", allocationSize = 50) // 대량 주문(orderAll)에서도 시퀀스 호출은 50건에 1번
+    @Column(name = "outbox_event_id")
+    private Long id;
+
+    @Column(name = "aggregate_type")
+    private String aggregateType; // Order
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId; // order id
+
+    @Column(name = "aggregate_version")
+    private Long aggregateVersion; // 커밋될 때의 주문 version -> 같은 주문 안의 발행 순서
+
+    private String eventType; // OrderCreated, OrderCancelled
+
+    @Lob
+    private String payload; // json
+
+    private LocalDateTime createdAt;
+
+    //==생성 메서드==//
+    public static OutboxEvent create(String aggregateType, Long aggregateId, Long aggregateVersion, String eventType, String payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.aggregateType = aggregateType;
+        event.aggregateId = aggregateId;
+        event.aggregateVersion = aggregateVersion;
+        event.eventType = eventType;
+        event.payload = payload;
+        event.createdAt = LocalDateTime.now();
+        return event;
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderCancelledEvent;
+import jpabook.jpashop.domain.OrderCreatedEvent;
+import jpabook.jpashop.domain.OrderItem;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 이벤트를 outbox_event에 저장한다.
+ * 동기 리스너라서 주문과 같은 트랜잭션에 insert 된다. -> 주문이 커밋되면 이벤트도 반드시 남고, 롤백되면 같이 사라진다.
+ * 커밋 후에는 relay를 깨워서 바로 발행하게 한다. (outbox를 계속 polling 하지 않는다.)
+ * 주문의 version을 같이 저장해서 relay가 주문별로 순서대로 발행하게 한다. (OutboxEvent 참고)
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxEventRecorder {
+    private static final String AGGREGATE_TYPE = "Order";
+
+    private final OutboxRepository outboxRepository;
+    private final OutboxRelay outboxRelay;
+    private final ObjectMapper objectMapper;
+
+    @EventListener
+    public void on(OrderCreatedEvent event) {
+        record("OrderCreated", event.getOrder());
+    }
+
+    @EventListener
+    public void on(OrderCancelledEvent event) {
+        // 생성은 persist 때 version이 0으로 정해지지만, 변경은 flush 때 version이 올라간다. -> 커밋될 version을 먼저 확정
+        outboxRepository.flush();
+        record("OrderCancelled", event.getOrder());
+    }
+
+    private void record(String eventType, Order order) {
+        outboxRepository.save(OutboxEvent.create(AGGREGATE_TYPE, order.getId(), order.getVersion(), eventType, toPayload(order)));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxRelay.wakeUp();
+                }
+            });
+        }
+    }
+
+    private String toPayload(Order order) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("orderId", order.getId());
+        payload.put("memberId", order.getMember().getId());
+        payload.put("status", order.getStatus());
+        payload.put("orderDate", order.getOrderDate().toString());
+        payload.put("totalPrice", order.getTotalPrice());
+
+        List<Map<String, Object>> items = new ArrayList<>();
+        for (OrderItem orderItem : order.getOrderItems()) {
+            Map<String, Object> item = new LinkedHashMap<>();
+            item.put("itemId", orderItem.getItem().getId());
+            item.put("orderPrice", orderItem.getOrderPrice());
+            item.put("count", orderItem.getCount());
+            items.add(item);
+        }
+        payload.put("orderItems", items);
+
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("아웃박스 이벤트를 json으로 변환할 수 없습니다. orderId=" + order.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package jpabook.jpashop.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * outbox_event를 주문별 version 순서대로 읽어서 sink로 발행하고, 발행한 행은 지운다.
+ * - 스레드 1개가 순서대로 발행한다. -> 같은 주문의 이벤트(생성 -> 취소)는 항상 커밋된 순서대로 나간다.
+ *   다른 주문 사이의 순서는 보장하지 않는다. (OutboxEvent 참고)
+ * - 평소에는 커밋 직후 OutboxEventRecorder가 깨울 때만 조회한다. fallback-poll-ms 주기의 조회는 놓친 이벤트(재시작 등)를 위한 것
+ * - 발행에 실패하면 그 주문의 뒤 이벤트만 건너뛰고 다른 주문은 계속 발행한다.
+ *   실패한 이벤트는 retry-backoff-ms 뒤에 다시 발행한다. (at-least-once -> 받는 쪽은 id로 중복 제거)
+ * 애플리케이션 인스턴스가 여러 대면 relay는 한 대에서만 켜야 한다. (jpashop.outbox.relay.enabled)
+ */
+@Slf4j
+@Component
+public class OutboxRelay {
+    private final OutboxRepository outboxRepository;
+    private final OutboxSink outboxSink;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter published;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long fallbackPollMillis;
+    private final long retryBackoffMillis;
+
+    private final Semaphore signal = new Semaphore(0);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> new Thread(r, "outbox-relay"));
+    private volatile boolean running = true;
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       OutboxSink outboxSink,
+                       PlatformTransactionManager transactionManager,
+                       MeterRegistry meterRegistry,
+                       @Value("${jpashop.outbox.relay.enabled:true}") boolean enabled,
+                       @Value("${jpashop.outbox.relay.batch-size:500}") int batchSize,
+                       @Value("${jpashop.outbox.relay.fallback-poll-ms:60000}") long fallbackPollMillis,
+                       @Value("${jpashop.outbox.relay.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.outboxRepository = outboxRepository;
+        this.outboxSink = outboxSink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.published = meterRegistry.counter("outbox.published");
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.fallbackPollMillis = fallbackPollMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            executor.execute(this::run);
+        }
+    }
+
+    /**
+     * 새 이벤트가 커밋되었음을 알린다. 여러 번 불러도 한 번만 조회한다.
+     */
+    public void wakeUp() {
+        if (signal.availablePermits() == 0) {
+            signal.release();
+        }
+    }
+
+    private void run() {
+        boolean pending = true; // 시작 시 남아 있는 이벤트부터 발행
+        while (running) {
+            try {
+                if (!pending) {
+                    signal.tryAcquire(fallbackPollMillis, TimeUnit.MILLISECONDS);
+                    signal.drainPermits();
+                }
+                pending = !relay();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) { // 발행 후 삭제 실패 등 -> 다음 조회 때 다시 발행된다.
+                log.warn("아웃박스 relay 실패", e);
+                pending = true;
+                sleepQuietly();
+            }
+        }
+    }
+
+    /**
+     * outbox가 빌 때까지 batchSize씩 발행한다.
+     * @return 모두 발행했으면 true, 실패해서 남은 이벤트가 있으면 false
+     */
+    private boolean relay() throws InterruptedException {
+        while (running) {
+            List<OutboxEvent> batch;
+            try {
+                batch = transactionTemplate.execute(status -> outboxRepository.findBatch(batchSize));
+            } catch (RuntimeException e) {
+                log.warn("아웃박스 조회 실패", e);
+                Thread.sleep(retryBackoffMillis);
+                return false;
+            }
+
+            List<Long> publishedIds = new ArrayList<>(batch.size());
+            int failed = 0;
+            OutboxEvent blocked = null; // 발행에 실패한 이벤트 -> 같은 주문의 뒤 이벤트는 순서를 지키기 위해 건너뛴다.
+            for (OutboxEvent event : batch) {
+                if (blocked != null && isSameAggregate(blocked, event)) {
+                    continue;
+                }
+                try {
+                    outboxSink.publish(event);
+                    publishedIds.add(event.getId());
+                } catch (Exception e) {
+                    if (failed++ == 0) { // sink 장애면 batch 전체가 실패하므로 첫 건만 자세히 남긴다.
+                        log.warn("아웃박스 이벤트 발행 실패. id={}, {}ms 후 다시 발행합니다.", event.getId(), retryBackoffMillis, e);
+                    }
+                    blocked = event;
+                }
+            }
+
+            if (!publishedIds.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> outboxRepository.deleteByIds(publishedIds));
+                published.increment(publishedIds.size());
+            }
+            if (failed > 0) {
+                log.warn("아웃박스 이벤트 {}건 발행 실패", failed);
+                Thread.sleep(retryBackoffMillis);
+                return false;
+            }
+            if (batch.size() < batchSize) {
+                return true;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameAggregate(OutboxEvent a, OutboxEvent b) {
+        return a.getAggregateType().equals(b.getAggregateType()) && a.getAggregateId().equals(b.getAggregateId());
+    }
+
+    private void sleepQuietly() {
+        try {
+            Thread.sleep(retryBackoffMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        signal.release();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.outbox;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+    private final EntityManager em;
+
+    public void save(OutboxEvent event) {
+        em.persist(event);
+    }
+
+    /**
+     * 저장된 변경을 바로 db에 반영한다. -> 엔티티의 @Version이 커밋될 때의 값으로 올라간다.
+     */
+    public void flush() {
+        em.flush();
+    }
+
+    /**
+     * 발행할 이벤트를 주문별 version 순서대로 limit개 -> idx_outbox_event_aggregate 인덱스 순서로 읽는다.
+     * 같은 주문의 이벤트는 붙어서 나온다.
+     */
+    public List<OutboxEvent> findBatch(int limit) {
+        return em.createQuery("select e from OutboxEvent e order by e.aggregateType, e.aggregateId, e.aggregateVersion, e.id", OutboxEvent.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    public int deleteByIds(Collection<Long> ids) {
+        return em.createQuery("delete from OutboxEvent e where e.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,13 @@
+package jpabook.jpashop.outbox;
+
+/**
+ * 아웃박스 이벤트를 내보낼 곳 (jpashop.outbox.sink로 선택)
+ * OutboxRelay가 한 스레드에서 주문별 version 순서대로 호출한다. -> 구현체는 받은 순서를 지켜서 내보내면 된다.
+ */
+public interface OutboxSink {
+
+    /**
+     * @throws Exception 발행 실패 -> 이 이벤트부터 잠시 후 다시 발행한다. (at-least-once)
+     */
+    void publish(OutboxEvent event) throws Exception;
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.CategoryTreeVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class CategoryRepository {
+    private final EntityManager em;
+
+    public void save(Category category) {
+        em.persist(category);
+    }
+
+    public Category findOne(Long id) {
+        return em.find(Category.class, id);
+    }
+
+    /**
+     * 전체 카테고리 (트리 구성용) -> parent는 프록시의 id만 사용하기 때문에 추가 쿼리가 나가지 않는다.
+     */
+    public List<Category> findAll() {
+        return em.createQuery("select c from Category c order by c.id", Category.class)
+                .getResultList();
+    }
+
+    /**
+     * 트리 버전 행을 비관적 락으로 조회 -> 트리 모양을 바꾸는 트랜잭션끼리 커밋할 때까지 줄을 세운다.
+     * 행이 없으면(처음 시작) 만든다.
+     */
+    public CategoryTreeVersion lockTreeVersion() {
+        CategoryTreeVersion treeVersion = em.find(CategoryTreeVersion.class, CategoryTreeVersion.ID, LockModeType.PESSIMISTIC_WRITE);
+        if (treeVersion == null) {
+            treeVersion = CategoryTreeVersion.create();
+            em.persist(treeVersion);
+            em.flush(); // 동시에 만들면 pk 충돌로 한쪽이 실패한다.
+        }
+        return treeVersion;
+    }
+
+    /**
+     * 현재 트리 버전 (행이 없으면 0) -> pk 조회 1번, 2차 캐시를 거치지 않는다.
+     */
+    public long findTreeVersion() {
+        List<Long> versions = em.createQuery("select v.version from CategoryTreeVersion v where v.id = :id", Long.class)
+                .setParameter("id", CategoryTreeVersion.ID)
+                .getResultList();
+        return versions.isEmpty() ? 0L : versions.get(0);
+    }
+}
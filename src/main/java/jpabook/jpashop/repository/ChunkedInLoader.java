@@ -0,0 +1,194 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.monitoring.QueryInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * id 목록을 나눠서 in 쿼리로 조회하는 공용 로더
+ * - id 전체를 in 하나에 넣으면 DB 파라미터 개수 제한에 걸리고, 목록 길이마다 다른 sql이 되어 실행 계획 캐시를 못 쓴다.
+ * - 그래서 최대 maxChunkSize개씩 나누고, 마지막 덩어리는 2의 거듭제곱 길이로 맞춘다. (모자란 자리는 마지막 id를 반복)
+ *   -> sql 모양이 in (?, ...) 16, 32, ..., maxChunkSize 몇 가지로 고정된다.
+ * - 덩어리가 여러 개면 호출한 스레드(현재 트랜잭션)와 공용 스레드 풀의 러너(각자 readOnly 트랜잭션, 커넥션 1개)가 나눠서 조회한다.
+ *   -> 덩어리마다 다른 시점의 스냅샷을 읽을 수 있다. 조회 화면처럼 그 정도 차이가 괜찮은 곳에서만 사용한다.
+ */
+@Component
+public class ChunkedInLoader {
+    private static final int MIN_CHUNK_SIZE = 16;
+
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int maxChunkSize;
+    private final int parallelism;
+
+    public ChunkedInLoader(PlatformTransactionManager transactionManager,
+                           @Value("${jpashop.query.in-chunk.max-size:1000}") int maxChunkSize,
+                           @Value("${jpashop.query.in-chunk.parallelism:4}") int parallelism) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true); // replica 라우팅 대상
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxChunkSize = Integer.highestOneBit(Math.max(maxChunkSize, MIN_CHUNK_SIZE)); // 2의 거듭제곱으로 내림
+        this.parallelism = parallelism;
+
+        if (parallelism > 1) {
+            // 스레드 1개가 커넥션 1개를 쓴다. -> 호출 스레드가 이미 1개를 쥐고 있으므로 커넥션 풀보다 충분히 작게
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.executor = Executors.newFixedThreadPool(parallelism, r -> {
+                Thread thread = new Thread(r, "chunked-in-loader-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.executor = null; // 모두 호출 스레드에서 순서대로
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * ids를 나눠서 query로 조회하고 결과를 key 기준으로 묶는다.
+     * @param query 덩어리(중복 없는 id, 뒤쪽이 마지막 id로 채워질 수 있음)를 받아 in 쿼리로 조회
+     * @param keyMapper 결과 row를 묶을 id (ex. orderId)
+     */
+    public <R> Map<Long, List<R>> loadGrouped(Collection<Long> ids, Function<List<Long>, List<R>> query, Function<R, Long> keyMapper) {
+        Map<Long, List<R>> result = new HashMap<>();
+        for (List<R> rows : load(ids, query)) {
+            for (R row : rows) {
+                result.computeIfAbsent(keyMapper.apply(row), key -> new ArrayList<>()).add(row);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * ids를 나눠서 query로 조회한다. 반환값은 덩어리 순서대로의 결과 목록
+     * 덩어리는 큐에 넣고 호출 스레드와 러너(최대 parallelism개)가 함께 꺼내 간다. (ParallelQueryExecutor.Fork와 같은 방식)
+     * -> 호출 스레드는 아직 시작하지 않은 덩어리를 직접 실행하고, 러너가 이미 실행 중인 덩어리만 기다린다.
+     *    풀이 다른 요청으로 가득 차서 러너가 뜨지 못해도 호출 스레드가 전부 처리하므로 교착되지 않는다.
+     */
+    public <R> List<List<R>> load(Collection<Long> ids, Function<List<Long>, List<R>> query) {
+        List<List<Long>> chunks = chunk(ids);
+        if (chunks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (chunks.size() == 1 || executor == null) {
+            List<List<R>> results = new ArrayList<>(chunks.size());
+            for (List<Long> chunk : chunks) {
+                results.add(QueryInspector.planned(() -> query.apply(chunk)));
+            }
+            return results;
+        }
+
+        Queue<FutureTask<List<R>>> pending = new ConcurrentLinkedQueue<>();
+        List<FutureTask<List<R>>> tasks = new ArrayList<>(chunks.size());
+        for (List<Long> chunk : chunks) {
+            FutureTask<List<R>> task = new FutureTask<>(() -> QueryInspector.planned(() -> query.apply(chunk))); // 덩어리 수만큼 같은 sql -> N + 1 아님
+            pending.add(task);
+            tasks.add(task);
+        }
+        // 호출 스레드가 1덩어리는 맡으므로 러너는 덩어리 수 - 1개까지만
+        int runners = Math.min(chunks.size() - 1, parallelism);
+        for (int i = 0; i < runners; i++) {
+            try {
+                executor.execute(QueryInspector.propagate(() -> runInReadOnlyTransaction(pending))); // 러너의 sql도 요청 통계에 포함
+            } catch (RejectedExecutionException e) {
+                break; // 종료 중이면 호출 스레드가 모두 실행한다.
+            }
+        }
+
+        drain(pending);
+        List<List<R>> results = new ArrayList<>(chunks.size());
+        try {
+            for (FutureTask<List<R>> task : tasks) {
+                results.add(task.get()); // 남은 건 러너가 이미 실행 중인 덩어리뿐
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancel(pending, tasks);
+            throw new IllegalStateException("덩어리 조회 대기 중 인터럽트", e);
+        } catch (ExecutionException e) {
+            cancel(pending, tasks);
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+        return results;
+    }
+
+    private void runInReadOnlyTransaction(Queue<? extends Runnable> pending) {
+        if (pending.isEmpty()) {
+            return; // 호출 스레드가 이미 다 가져갔으면 커넥션을 빌리지 않는다.
+        }
+        readOnlyTransaction.executeWithoutResult(status -> drain(pending));
+    }
+
+    private static void drain(Queue<? extends Runnable> pending) {
+        Runnable task;
+        while ((task = pending.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * 아직 시작하지 않은 덩어리는 버린다. 실행 중인 쿼리는 중단하지 않고 끝나게 둔다. (결과는 버려진다.)
+     */
+    private static <R> void cancel(Queue<FutureTask<List<R>>> pending, List<FutureTask<List<R>>> tasks) {
+        pending.clear();
+        tasks.forEach(task -> task.cancel(false));
+    }
+
+    /**
+     * ids를 나눠서 호출한 스레드(현재 트랜잭션)에서 순서대로 조회한다.
+     * 조회한 엔티티를 수정할 때 사용 -> 다른 스레드의 트랜잭션에서 읽은 엔티티는 현재 영속성 컨텍스트에 없어서 변경 감지가 되지 않는다.
+     */
+    public <R> List<R> loadInCurrentTransaction(Collection<Long> ids, Function<List<Long>, List<R>> query) {
+        List<R> result = new ArrayList<>();
+        for (List<Long> chunk : chunk(ids)) {
+            result.addAll(QueryInspector.planned(() -> query.apply(chunk)));
+        }
+        return result;
+    }
+
+    /**
+     * 중복을 빼고 maxChunkSize개씩 나눈다. 마지막 덩어리는 2의 거듭제곱(최소 MIN_CHUNK_SIZE) 길이로 채운다.
+     */
+    List<List<Long>> chunk(Collection<Long> ids) {
+        List<Long> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        distinct.removeIf(Objects::isNull);
+
+        List<List<Long>> chunks = new ArrayList<>((distinct.size() + maxChunkSize - 1) / maxChunkSize);
+        for (int from = 0; from < distinct.size(); from += maxChunkSize) {
+            List<Long> chunk = new ArrayList<>(distinct.subList(from, Math.min(from + maxChunkSize, distinct.size())));
+            int padded = paddedSize(chunk.size());
+            Long last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < padded) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    private int paddedSize(int size) {
+        if (size <= MIN_CHUNK_SIZE) {
+            return MIN_CHUNK_SIZE;
+        }
+        int highest = Integer.highestOneBit(size);
+        return Math.min(highest == size ? size : highest << 1, maxChunkSize);
+    }
+}
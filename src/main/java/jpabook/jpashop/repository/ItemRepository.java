@@ -2,9 +2,14 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Item;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.CacheRetrieveMode;
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
 @Repository
@@ -24,8 +29,47 @@ public class ItemRepository {
         return em.find(Item.class, id);
     }
 
+    /**
+     * 2차 캐시를 거치지 않고 DB에서 조회 -> 재고를 차감하는 주문 경로에서 사용
+     */
+    public Item findOneBypassCache(Long id) {
+        return em.find(Item.class, id,
+                Collections.singletonMap("javax.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS));
+    }
+
     public List<Item> findAll() {
         return em.createQuery("select i from Item i", Item.class)
+                .setHint(QueryHints.CACHEABLE, true) // 쿼리 캐시: item 테이블이 바뀌면 자동으로 무효화된다.
+                .getResultList();
+    }
+
+    public List<Item> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids", Item.class)
+                .setParameter("ids", ids)
                 .getResultList();
     }
+
+    /**
+     * nested set 구간 [lft, rgt]에 속한 카테고리(= 카테고리와 그 하위 전체)의 상품
+     * 카테고리 깊이와 상관없이 category.lft 인덱스 범위 조회 1번 + category_item 조인
+     * @param lastItemId 이전 페이지의 마지막 item id (첫 페이지면 null)
+     */
+    public List<Item> findAllInCategoryRange(int lft, int rgt, Long lastItemId, int limit) {
+        String jpql = "select distinct i from Item i" +
+                " join i.categories c" +
+                " where c.lft between :lft and :rgt";
+        if (lastItemId != null) {
+            jpql += " and i.id > :lastItemId";
+        }
+        jpql += " order by i.id";
+
+        TypedQuery<Item> query = em.createQuery(jpql, Item.class)
+                .setParameter("lft", lft)
+                .setParameter("rgt", rgt)
+                .setMaxResults(limit);
+        if (lastItemId != null) {
+            query.setParameter("lastItemId", lastItemId);
+        }
+        return query.getResultList();
+    }
 }
@@ -2,13 +2,16 @@ package jpabook.jpashop.repository;
 
 import jpabook.jpashop.domain.Member;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.PersistenceContext;
 import javax.persistence.PersistenceUnit;
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
@@ -36,6 +39,45 @@ public class MemberRepository {
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
+                .setHint(QueryHints.CACHEABLE, true) // 쿼리 캐시: member 테이블이 바뀌면 자동으로 무효화된다.
+                .getResultList();
+    }
+
+    /**
+     * 회원 이름만 forward-only 커서로 읽는다. (엔티티를 만들지 않음) -> 다 쓰고 나면 반드시 close
+     */
+    public Stream<String> streamNames(int fetchSize) {
+        return em.createQuery("select m.name from Member m", String.class)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize)
+                .getResultStream();
+    }
+
+    /**
+     * names 중 이미 있는 이름만 (일괄 등록 중복 검사용, names는 in 하나에 들어갈 만큼만)
+     */
+    public List<String> findExistingNames(Collection<String> names) {
+        return em.createQuery("select m.name from Member m where m.name in :names", String.class)
+                .setParameter("names", names)
+                .getResultList();
+    }
+
+    /**
+     * 쓰기 지연된 sql을 바로 실행 -> 제약 조건 위반(DataIntegrityViolationException)을 호출한 곳에서 처리할 수 있다.
+     */
+    public void flush() {
+        em.flush();
+    }
+
+    /**
+     * 영속성 컨텍스트 비우기 -> 대량 등록 중 1차 캐시가 계속 커지지 않도록 (flush 후에 호출)
+     */
+    public void clear() {
+        em.clear();
+    }
+
+    public List<Member> findAllByIds(Collection<Long> ids) {
+        return em.createQuery("select m from Member m where m.id in :ids", Member.class)
+                .setParameter("ids", ids)
                 .getResultList();
     }
 }
@@ -24,6 +24,20 @@ public class OrderRepository {
         return em.find(Order.class, id);
     }
 
+    /**
+     * 쓰기 지연된 insert/update를 지금 실행 (jdbc batch로 묶여서 나간다.)
+     */
+    public void flush() {
+        em.flush();
+    }
+
+    /**
+     * 영속성 컨텍스트 비우기 -> 대량 주문 중 1차 캐시가 계속 커지지 않도록 (flush 후에 호출)
+     */
+    public void clear() {
+        em.clear();
+    }
+
     // jpql을 동적으로 생성
     public List<Order> findAllByString(OrderSearch orderSearch) {
         String jpql = "select o from Order o join o.member m";
@@ -58,7 +72,7 @@ public class OrderRepository {
             query = query.setParameter("status", orderSearch.getOrderStatus());
         }
         if (StringUtils.hasText(orderSearch.getMemberName())) {
-            query = query.setParameter("name", orderSearch.getMemberName());
+            query = query.setParameter("name", orderSearch.getMemberName()); // 와일드카드가 없으면 일치 검색 -> member.name 인덱스 사용
         }
 
         return query.getResultList();
@@ -137,4 +151,26 @@ public class OrderRepository {
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    /**
+     * keyset(seek) 페이징 -> offset이 커질수록 앞 데이터를 읽고 버리는 비용이 없다.
+     * 컬렉션(orderItems)은 그대로 @BatchSize로 페이지 단위 in 쿼리 1번에 가져온다.
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<Order> findAllWithMemberDelivery(Long lastOrderId, int limit) {
+        String jpql = "select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<Order> query = em.createQuery(jpql, Order.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
 }
@@ -0,0 +1,79 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderSummary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderSummaryRepository {
+    private final EntityManager em;
+
+    public void save(OrderSummary orderSummary) {
+        em.persist(orderSummary);
+    }
+
+    public OrderSummary findOne(Long orderId) {
+        return em.find(OrderSummary.class, orderId);
+    }
+
+    /**
+     * order_summary 한 테이블만 조회 (조인 없음)
+     * 주문 상태, 회원명(앞부분 일치) 검색 + order id keyset 페이징
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderSummary> findAll(OrderSearch orderSearch, Long lastOrderId, int limit) {
+        return find(orderSearch, lastOrderId, limit, false);
+    }
+
+    /**
+     * findAll과 같은 검색을 최신 주문부터 (주문 목록 화면용)
+     * (status, order_id), (member_name, order_id) 인덱스를 역방향으로 읽는다.
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderSummary> findLatest(OrderSearch orderSearch, Long lastOrderId, int limit) {
+        return find(orderSearch, lastOrderId, limit, true);
+    }
+
+    private List<OrderSummary> find(OrderSearch orderSearch, Long lastOrderId, int limit, boolean latestFirst) {
+        String jpql = "select s from OrderSummary s where 1 = 1";
+        if (orderSearch.getOrderStatus() != null) {
+            jpql += " and s.status = :status";
+        }
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            jpql += " and s.memberName like :name";
+        }
+        if (lastOrderId != null) {
+            jpql += latestFirst ? " and s.orderId < :lastOrderId" : " and s.orderId > :lastOrderId";
+        }
+        jpql += latestFirst ? " order by s.orderId desc" : " order by s.orderId";
+
+        TypedQuery<OrderSummary> query = em.createQuery(jpql, OrderSummary.class)
+                .setMaxResults(limit);
+        if (orderSearch.getOrderStatus() != null) {
+            query.setParameter("status", orderSearch.getOrderStatus());
+        }
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            query.setParameter("name", orderSearch.getMemberName() + "%");
+        }
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * 회원 이름이 바뀌면 그 회원의 주문 요약도 같이 바꾼다. (벌크 update 1번)
+     */
+    public int updateMemberName(Long memberId, String memberName) {
+        return em.createQuery("update OrderSummary s set s.memberName = :memberName where s.memberId = :memberId")
+                .setParameter("memberName", memberName)
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,143 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.monitoring.QueryInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 서로 독립적인 조회 쿼리를 동시에 실행한다. (루트 id로 자식 컬렉션, 배송, 회원 등을 따로 조회할 때)
+ * - 요청마다 fork()로 묶음을 만들고 submit으로 쿼리를 넣은 뒤 join()으로 기다린다.
+ * - 호출 스레드도 자기 트랜잭션(커넥션)으로 쿼리를 꺼내 실행하고,
+ *   공용 풀에서는 요청당 최대 maxConnectionsPerRequest개의 러너가 각자 readOnly 트랜잭션 1개(커넥션 1개) 안에서 남은 쿼리를 꺼내 실행한다.
+ *   -> 요청 1개가 추가로 빌리는 커넥션은 maxConnectionsPerRequest개를 넘지 않고, 응답 시간은 쿼리 합이 아니라 가장 느린 쿼리 정도가 된다.
+ * - 러너는 별도 트랜잭션이라 호출한 트랜잭션에서 아직 커밋하지 않은 데이터는 보이지 않는다. -> readOnly 조회 전용
+ */
+@Component
+public class ParallelQueryExecutor {
+    private final TransactionTemplate readOnlyTransaction;
+    private final ExecutorService executor;
+    private final int maxConnectionsPerRequest;
+
+    public ParallelQueryExecutor(PlatformTransactionManager transactionManager,
+                                 @Value("${jpashop.query.parallel.pool-size:8}") int poolSize,
+                                 @Value("${jpashop.query.parallel.max-connections-per-request:2}") int maxConnectionsPerRequest) {
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true); // replica 라우팅 대상
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxConnectionsPerRequest = Math.max(0, maxConnectionsPerRequest);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, poolSize), r -> {
+            Thread thread = new Thread(r, "parallel-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Fork fork() {
+        return new Fork();
+    }
+
+    /**
+     * 요청 1개 동안 사용하는 쿼리 묶음 (스레드 안전하지 않음 -> 만든 스레드에서만 submit/join)
+     */
+    public class Fork {
+        private final Queue<FutureTask<?>> pending = new ConcurrentLinkedQueue<>();
+        private final List<FutureTask<?>> submitted = new ArrayList<>();
+        private int runners;
+
+        private Fork() {
+        }
+
+        /**
+         * 쿼리를 넣고 바로 러너를 띄운다. 결과는 join() 이후 Future.get()으로 꺼낸다.
+         */
+        public <T> Future<T> submit(Supplier<T> query) {
+            FutureTask<T> task = new FutureTask<>(() -> QueryInspector.planned(query)); // 같은 쿼리를 나눠 넣어도 N + 1로 보지 않는다.
+            pending.add(task);
+            submitted.add(task);
+            // 첫 쿼리는 join()에서 호출 스레드가 실행하므로 두 번째 쿼리부터 러너를 띄운다.
+            if (submitted.size() > 1 && runners < maxConnectionsPerRequest) {
+                try {
+                    executor.execute(QueryInspector.propagate(this::runInReadOnlyTransaction)); // 러너의 sql, 커넥션도 요청 통계에 포함
+                    runners++;
+                } catch (RejectedExecutionException e) {
+                    // 종료 중이면 호출 스레드가 모두 실행한다.
+                }
+            }
+            return task;
+        }
+
+        /**
+         * 호출 스레드도 남은 쿼리를 실행하고, 모든 쿼리가 끝날 때까지 기다린다.
+         * 하나라도 실패하면 그 예외를 다시 던진다.
+         */
+        public void join() {
+            drain();
+            try {
+                for (FutureTask<?> task : submitted) {
+                    task.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw new IllegalStateException("병렬 조회 대기 중 인터럽트", e);
+            } catch (ExecutionException e) {
+                cancel();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        private void runInReadOnlyTransaction() {
+            if (pending.isEmpty()) {
+                return; // 호출 스레드가 이미 다 가져갔으면 커넥션을 빌리지 않는다.
+            }
+            readOnlyTransaction.executeWithoutResult(status -> drain());
+        }
+
+        private void drain() {
+            FutureTask<?> task;
+            while ((task = pending.poll()) != null) {
+                task.run();
+            }
+        }
+
+        private void cancel() {
+            pending.clear();
+            submitted.forEach(task -> task.cancel(false));
+        }
+    }
+
+    /**
+     * join() 이후에 결과를 꺼낸다. (이미 끝났으므로 기다리지 않는다.)
+     */
+    public static <T> T resultOf(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+}
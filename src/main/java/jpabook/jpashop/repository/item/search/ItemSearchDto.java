@@ -0,0 +1,12 @@
+package jpabook.jpashop.repository.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemSearchDto {
+    private Long itemId;
+    private String name;
+    private Integer price;
+}
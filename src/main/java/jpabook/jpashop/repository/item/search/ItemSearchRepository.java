@@ -0,0 +1,46 @@
+package jpabook.jpashop.repository.item.search;
+
+import jpabook.jpashop.domain.Item;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.search.engine.search.predicate.dsl.BooleanPredicateClausesStep;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.Locale;
+
+/**
+ * 상품 검색 (Lucene 인덱스) -> item 테이블을 조회하지 않고 인덱스에 저장된 필드(id, name, price)로 결과를 만든다.
+ * 점수: 단어 일치(x3) > 앞부분 일치(x2) > 오타 허용(편집 거리 1~2) 순으로 높다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemSearchRepository {
+    // 하위 타입에만 있는 필드(author 등)는 그 타입의 인덱스에서만 검색된다.
+    private static final String[] FIELDS = {"name", "author", "isbn", "artist", "director", "actor"};
+
+    private final EntityManager em;
+
+    public ItemSearchResult search(String keyword, int offset, int limit) {
+        String[] terms = keyword.trim().toLowerCase(Locale.ROOT).split("\\s+");
+
+        SearchResult<ItemSearchDto> result = Search.session(em)
+                .search(Item.class)
+                .select(f -> f.composite(ItemSearchDto::new,
+                        f.id(Long.class), f.field("name", String.class), f.field("price", Integer.class)))
+                .where(f -> {
+                    BooleanPredicateClausesStep<?> bool = f.bool()
+                            .should(f.match().fields(FIELDS).matching(keyword).boost(3f))
+                            .should(f.match().fields(FIELDS).matching(keyword).fuzzy(2));
+                    for (String term : terms) {
+                        // 인덱스의 단어는 소문자라서 직접 소문자로 맞춘다. (wildcard는 분석기를 거치지 않는다.)
+                        bool.should(f.wildcard().fields(FIELDS).matching(term + "*").boost(2f));
+                    }
+                    return bool;
+                })
+                .fetch(offset, limit);
+
+        return new ItemSearchResult(result.total().hitCount(), result.hits());
+    }
+}
@@ -0,0 +1,13 @@
+package jpabook.jpashop.repository.item.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ItemSearchResult {
+    private long total; // 전체 검색 결과 수
+    private List<ItemSearchDto> items; // 점수 높은 순
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.repository.member.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+
+/**
+ * 회원 목록 한 줄 -> 요청한 필드만 채우고, 채우지 않은 필드(null)는 json에서 빠진다.
+ */
+@Data
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MemberQueryDto {
+    @JsonIgnore
+    private Long memberId; // 다음 페이지 커서용 (fields와 상관없이 항상 조회)
+    private Long id;
+    private String name;
+    private String city;
+    private String street;
+    private String zipcode;
+
+    public MemberQueryDto(Long memberId) {
+        this.memberId = memberId;
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.repository.member.query;
+
+import jpabook.jpashop.exception.InvalidRequestException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.*;
+
+/**
+ * 회원 목록 조회 -> 엔티티를 전부 영속성 컨텍스트에 올리지 않고, 요청한 컬럼만 member id 기준 keyset 페이징으로 읽는다.
+ * 페이지 크기만큼만 메모리에 올라오고, 뒤 페이지도 PK 인덱스로 바로 찾아가서 회원 수와 상관없이 응답 시간이 일정하다.
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberQueryRepository {
+    public static final int MAX_LIMIT = 1000;
+    public static final List<String> ALL_FIELDS = List.of("id", "name", "city", "street", "zipcode");
+
+    // 필드 이름 -> jpql 경로 (이 목록에 없는 필드는 받지 않는다. -> 요청값이 jpql에 그대로 들어가지 않도록)
+    private static final Map<String, String> PATHS = Map.of(
+            "id", "m.id",
+            "name", "m.name",
+            "city", "m.address.city",
+            "street", "m.address.street",
+            "zipcode", "m.address.zipcode");
+
+    private final EntityManager em;
+
+    /**
+     * Query: 1번 (select m.id, [요청한 컬럼] ...)
+     * @param fields 조회할 필드 (ALL_FIELDS 중에서, 아니면 InvalidRequestException -> api는 400)
+     * @param lastMemberId 이전 페이지의 마지막 member id (첫 페이지면 null)
+     */
+    public List<MemberQueryDto> findMembers(Collection<String> fields, Long lastMemberId, int limit) {
+        List<String> selected = new ArrayList<>(new LinkedHashSet<>(fields));
+        for (String field : selected) {
+            if (!PATHS.containsKey(field)) {
+                throw new InvalidRequestException("조회할 수 없는 필드입니다: " + field + " (가능: " + String.join(",", ALL_FIELDS) + ")");
+            }
+        }
+
+        StringBuilder jpql = new StringBuilder("select m.id");
+        for (String field : selected) {
+            jpql.append(", ").append(PATHS.get(field));
+        }
+        jpql.append(" from Member m");
+        if (lastMemberId != null) {
+            jpql.append(" where m.id > :lastMemberId");
+        }
+        jpql.append(" order by m.id");
+
+        TypedQuery<Object[]> query = em.createQuery(jpql.toString(), Object[].class)
+                .setMaxResults(Math.min(limit, MAX_LIMIT));
+        if (lastMemberId != null) {
+            query.setParameter("lastMemberId", lastMemberId);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        List<MemberQueryDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            MemberQueryDto dto = new MemberQueryDto((Long) row[0]);
+            for (int i = 0; i < selected.size(); i++) {
+                set(dto, selected.get(i), row[i + 1]);
+            }
+            result.add(dto);
+        }
+        return result;
+    }
+
+    private static void set(MemberQueryDto dto, String field, Object value) {
+        switch (field) {
+            case "id": dto.setId((Long) value); break;
+            case "name": dto.setName((String) value); break;
+            case "city": dto.setCity((String) value); break;
+            case "street": dto.setStreet((String) value); break;
+            case "zipcode": dto.setZipcode((String) value); break;
+            default: throw new IllegalArgumentException(field);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * flat 조인 결과(OrderFlatDto, 주문 상품 1개당 row 1개)를 주문 단위 OrderQueryDto로 묶는다.
+ * - row가 order id 순으로 오면 한 번 훑으면서 id가 바뀔 때마다 새 주문을 만든다. (중간 map 없음)
+ * - 정렬되어 있지 않으면 long 전용 맵(order id -> 결과 index)으로 묶는다. (boxing 없음)
+ * 어느 쪽이든 결과는 주문이 처음 나온 순서를 유지하고, 할당은 주문당 OrderQueryDto + List, row당 OrderItemQueryDto뿐이다.
+ * (groupingBy는 row마다 key용 OrderQueryDto와 map entry를 만들고, 다시 OrderQueryDto로 옮겨 담는다.)
+ */
+public final class FlatOrderAssembler {
+
+    private FlatOrderAssembler() {
+    }
+
+    public static List<OrderQueryDto> assemble(List<OrderFlatDto> rows) {
+        List<OrderQueryDto> orders = new ArrayList<>();
+        OrderQueryDto current = null;
+        long currentOrderId = 0;
+        for (OrderFlatDto row : rows) {
+            long orderId = row.getOrderId();
+            if (current == null || orderId != currentOrderId) {
+                if (current != null && orderId < currentOrderId) {
+                    return assembleUnsorted(rows); // 정렬되어 있지 않다. -> 처음부터 맵으로 묶는다.
+                }
+                current = newOrder(row);
+                orders.add(current);
+                currentOrderId = orderId;
+            }
+            current.getOrderItems().add(newOrderItem(row));
+        }
+        return orders;
+    }
+
+    /**
+     * order id 순으로 정렬된 row를 읽으면서 주문이 완성될 때마다 consumer에 넘긴다. -> 한 번에 주문 1건만 메모리에 있다.
+     * @throws IllegalArgumentException row가 order id 순이 아닌 경우
+     */
+    public static <E extends Exception> long forEachOrder(Iterator<OrderFlatDto> rows, OrderConsumer<E> consumer) throws E {
+        long count = 0;
+        OrderQueryDto current = null;
+        long currentOrderId = 0;
+        while (rows.hasNext()) {
+            OrderFlatDto row = rows.next();
+            long orderId = row.getOrderId();
+            if (current == null || orderId != currentOrderId) {
+                if (current != null) {
+                    if (orderId < currentOrderId) {
+                        throw new IllegalArgumentException("order id 순으로 정렬된 row가 필요합니다.");
+                    }
+                    consumer.accept(current);
+                    count++;
+                }
+                current = newOrder(row);
+                currentOrderId = orderId;
+            }
+            current.getOrderItems().add(newOrderItem(row));
+        }
+        if (current != null) {
+            consumer.accept(current);
+            count++;
+        }
+        return count;
+    }
+
+    static List<OrderQueryDto> assembleUnsorted(List<OrderFlatDto> rows) {
+        List<OrderQueryDto> orders = new ArrayList<>();
+        LongIntHashMap indexByOrderId = new LongIntHashMap(rows.size());
+        for (OrderFlatDto row : rows) {
+            long orderId = row.getOrderId();
+            int index = indexByOrderId.get(orderId);
+            if (index == LongIntHashMap.NOT_FOUND) {
+                index = orders.size();
+                orders.add(newOrder(row));
+                indexByOrderId.put(orderId, index);
+            }
+            orders.get(index).getOrderItems().add(newOrderItem(row));
+        }
+        return orders;
+    }
+
+    private static OrderQueryDto newOrder(OrderFlatDto row) {
+        return new OrderQueryDto(row.getOrderId(), row.getName(), row.getOrderDate(),
+                row.getOrderStatus(), row.getAddress(), new ArrayList<>());
+    }
+
+    private static OrderItemQueryDto newOrderItem(OrderFlatDto row) {
+        return new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()); // orderId는 row의 Long을 그대로 사용
+    }
+
+    @FunctionalInterface
+    public interface OrderConsumer<E extends Exception> {
+        void accept(OrderQueryDto order) throws E;
+    }
+}
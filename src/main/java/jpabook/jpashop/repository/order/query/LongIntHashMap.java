@@ -0,0 +1,70 @@
+package jpabook.jpashop.repository.order.query;
+
+import java.util.Arrays;
+
+/**
+ * long -> int 전용 해시맵 (open addressing, 선형 탐사)
+ * HashMap<Long, Integer>와 달리 key boxing, Entry 객체 할당이 없다. 값은 0 이상만 저장한다.
+ */
+final class LongIntHashMap {
+    static final int NOT_FOUND = -1;
+
+    private long[] keys;
+    private int[] values; // NOT_FOUND면 빈 칸
+    private int mask;
+    private int size;
+
+    LongIntHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2) - 1) << 1; // 2의 거듭제곱, 부하율 0.5 이하
+        allocate(capacity);
+    }
+
+    int get(long key) {
+        for (int i = indexOf(key); values[i] != NOT_FOUND; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                return values[i];
+            }
+        }
+        return NOT_FOUND;
+    }
+
+    void put(long key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize();
+        }
+        int i = indexOf(key);
+        for (; values[i] != NOT_FOUND; i = (i + 1) & mask) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+        }
+        keys[i] = key;
+        values[i] = value;
+        size++;
+    }
+
+    private int indexOf(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L; // id가 연속된 값이어도 골고루 퍼지게
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != NOT_FOUND) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, NOT_FOUND);
+        mask = capacity - 1;
+    }
+}
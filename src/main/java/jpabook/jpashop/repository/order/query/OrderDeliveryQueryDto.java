@@ -0,0 +1,20 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.DeliveryStatus;
+import lombok.Data;
+
+@Data
+public class OrderDeliveryQueryDto {
+    @JsonIgnore
+    private Long orderId; // 묶을 때만 사용
+    private DeliveryStatus status;
+    private Address address;
+
+    public OrderDeliveryQueryDto(Long orderId, DeliveryStatus status, Address address) {
+        this.orderId = orderId;
+        this.status = status;
+        this.address = address;
+    }
+}
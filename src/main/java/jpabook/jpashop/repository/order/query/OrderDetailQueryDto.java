@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository.order.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 주문 상세 조회용 -> 루트(order)를 먼저 조회하고 회원, 배송, 주문상품은 각각 따로(동시에) 조회해서 채운다.
+ */
+@Data
+public class OrderDetailQueryDto {
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+    private OrderMemberQueryDto member;
+    private OrderDeliveryQueryDto delivery;
+    private List<OrderItemQueryDto> orderItems;
+
+    @JsonIgnore
+    private Long memberId; // 회원 조회용 fk (응답에는 member.memberId로 나간다.)
+
+    public OrderDetailQueryDto(Long orderId, Long memberId, LocalDateTime orderDate, OrderStatus orderStatus) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+    }
+}
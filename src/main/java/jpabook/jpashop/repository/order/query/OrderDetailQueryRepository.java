@@ -0,0 +1,112 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.repository.ParallelQueryExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.*;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static jpabook.jpashop.repository.ParallelQueryExecutor.resultOf;
+
+/**
+ * 주문 상세(회원, 배송, 주문상품 포함) 조회
+ * Query: 루트 1번 + 자식 3번(주문상품, 배송, 회원) -> 자식 쿼리는 ParallelQueryExecutor로 동시에 실행
+ * 응답 시간 = 루트 + 가장 느린 자식 쿼리 (순서대로 실행하면 루트 + 자식 3개의 합)
+ */
+@Repository
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderDetailQueryRepository {
+    public static final int MAX_LIMIT = 1000; // in 하나에 들어가는 id 수 상한
+
+    private final EntityManager em;
+    private final ParallelQueryExecutor parallelQueryExecutor;
+
+    /**
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderDetailQueryDto> findOrderDetails(Long lastOrderId, int limit) {
+        List<OrderDetailQueryDto> result = findOrders(lastOrderId, Math.min(limit, MAX_LIMIT));
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        List<Long> orderIds = result.stream().map(OrderDetailQueryDto::getOrderId).collect(Collectors.toList());
+        List<Long> memberIds = result.stream().map(OrderDetailQueryDto::getMemberId).distinct().collect(Collectors.toList());
+
+        ParallelQueryExecutor.Fork fork = parallelQueryExecutor.fork();
+        Future<Map<Long, List<OrderItemQueryDto>>> orderItems = fork.submit(() -> findOrderItems(orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItemQueryDto::getOrderId)));
+        Future<Map<Long, OrderDeliveryQueryDto>> deliveries = fork.submit(() -> toMap(findDeliveries(orderIds), OrderDeliveryQueryDto::getOrderId));
+        Future<Map<Long, OrderMemberQueryDto>> members = fork.submit(() -> toMap(findMembers(memberIds), OrderMemberQueryDto::getMemberId));
+        fork.join();
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = resultOf(orderItems);
+        Map<Long, OrderDeliveryQueryDto> deliveryMap = resultOf(deliveries);
+        Map<Long, OrderMemberQueryDto> memberMap = resultOf(members);
+        for (OrderDetailQueryDto order : result) {
+            order.setOrderItems(orderItemMap.getOrDefault(order.getOrderId(), Collections.emptyList()));
+            order.setDelivery(deliveryMap.get(order.getOrderId()));
+            order.setMember(memberMap.get(order.getMemberId()));
+        }
+        return result;
+    }
+
+    private List<OrderDetailQueryDto> findOrders(Long lastOrderId, int limit) {
+        // o.member.id는 fk 컬럼이라 member 조인이 없다.
+        String jpql = "select new jpabook.jpashop.repository.order.query.OrderDetailQueryDto(o.id, o.member.id, o.orderDate, o.status)" +
+                " from Order o";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<OrderDetailQueryDto> query = em.createQuery(jpql, OrderDetailQueryDto.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
+
+    private List<OrderItemQueryDto> findOrderItems(List<Long> orderIds) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
+                                " from OrderItem oi" +
+                                " join oi.item i" +
+                                " where oi.order.id in :orderIds", OrderItemQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    private List<OrderDeliveryQueryDto> findDeliveries(List<Long> orderIds) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderDeliveryQueryDto(o.id, d.status, d.address)" +
+                                " from Order o" +
+                                " join o.delivery d" +
+                                " where o.id in :orderIds", OrderDeliveryQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    private List<OrderMemberQueryDto> findMembers(List<Long> memberIds) {
+        return em.createQuery(
+                        "select new jpabook.jpashop.repository.order.query.OrderMemberQueryDto(m.id, m.name, m.address)" +
+                                " from Member m" +
+                                " where m.id in :memberIds", OrderMemberQueryDto.class)
+                .setParameter("memberIds", memberIds)
+                .getResultList();
+    }
+
+    private static <T> Map<Long, T> toMap(List<T> rows, Function<T, Long> keyMapper) {
+        Map<Long, T> map = new HashMap<>(rows.size() * 2);
+        rows.forEach(row -> map.put(keyMapper.apply(row), row));
+        return map;
+    }
+}
@@ -0,0 +1,17 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import lombok.Data;
+
+@Data
+public class OrderMemberQueryDto {
+    private Long memberId;
+    private String name;
+    private Address address;
+
+    public OrderMemberQueryDto(Long memberId, String name, Address address) {
+        this.memberId = memberId;
+        this.name = name;
+        this.address = address;
+    }
+}
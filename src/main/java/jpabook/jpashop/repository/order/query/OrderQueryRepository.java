@@ -1,18 +1,25 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.repository.ChunkedInLoader;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // 핵심 비즈니스 로직을 처리하는 리파지토리와 화면과 밀접한 관련(api 스펙)이 있는 리파지토리를 분리한다. (관심사 분리)
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true) // api 컨트롤러에서 바로 호출해도 readOnly 트랜잭션 -> replica로 라우팅
 public class OrderQueryRepository {
     private final EntityManager em;
+    private final ChunkedInLoader chunkedInLoader;
 
     /**
      * 컬렉션은 별도로 조회
@@ -65,7 +72,7 @@ public class OrderQueryRepository {
         // 루트 조회 (ToOne 관계를 모두 한번에 조회) -> query 1
         List<OrderQueryDto> result = findOrders();
 
-        // orderId를 in으로 orderItems를 찾음 -> query 2
+        // orderId를 in으로 orderItems를 찾음 -> query 1 + (주문 수 / maxChunkSize)
         Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
 
         //루프를 돌면서 컬렉션 추가(추가 쿼리 실행X)
@@ -73,19 +80,56 @@ public class OrderQueryRepository {
         return result;
     }
 
+    /**
+     * findAllByDto_optimization의 keyset 페이징 버전
+     * Query: 루트 1번(order id 기준 seek), 컬렉션 1번(해당 페이지의 orderId in)
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderQueryDto> findAllByDto_optimization(Long lastOrderId, int limit) {
+        List<OrderQueryDto> result = findOrders(lastOrderId, limit);
+        if (result.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<OrderItemQueryDto>> orderItemMap = findOrderItemMap(toOrderIds(result));
+        result.forEach(o -> o.setOrderItems(orderItemMap.get(o.getOrderId())));
+        return result;
+    }
+
+    private List<OrderQueryDto> findOrders(Long lastOrderId, int limit) {
+        String jpql = "select new jpabook.jpashop.repository.order.query.OrderQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<OrderQueryDto> query = em.createQuery(jpql, OrderQueryDto.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * orderId를 ChunkedInLoader로 나눠서 in 조회 -> 주문이 아무리 많아도 in 하나의 파라미터 수는 maxChunkSize 이하
+     */
     private Map<Long, List<OrderItemQueryDto>> findOrderItemMap(List<Long> orderIds) {
-        List<OrderItemQueryDto> orderItems = em.createQuery(
+        // map으로 변환 -> key: orderId
+        return chunkedInLoader.loadGrouped(orderIds, this::findOrderItemsIn, OrderItemQueryDto::getOrderId);
+    }
+
+    private List<OrderItemQueryDto> findOrderItemsIn(List<Long> orderIds) {
+        return em.createQuery(
                         "select new jpabook.jpashop.repository.order.query.OrderItemQueryDto(oi.order.id, i.name, oi.orderPrice, oi.count)" +
                                 " from OrderItem oi" +
                                 " join oi.item i" +
                                 " where oi.order.id in :orderIds", OrderItemQueryDto.class)
                 .setParameter("orderIds", orderIds)
                 .getResultList();
-
-        // map으로 변환 -> key: orderId
-        Map<Long, List<OrderItemQueryDto>> orderItemMap = orderItems.stream()
-                .collect(Collectors.groupingBy(orderItemQueryDto -> orderItemQueryDto.getOrderId()));
-        return orderItemMap;
     }
 
     private List<Long> toOrderIds(List<OrderQueryDto> result) {
@@ -98,13 +142,34 @@ public class OrderQueryRepository {
 
     public List<OrderFlatDto> findAllByDto_flat() {
         // 한번에 모두 조인해서 가지고 온다. -> 일대다 조인에서는 1이 다에 맞춰서 중복으로 나온다.
+        // order id 순으로 정렬 -> 같은 주문의 row가 연속으로 나와서 FlatOrderAssembler가 한 번에 묶을 수 있다.
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
                         " from Order o" +
                         " join o.member m" +
                         " join o.delivery d" +
                         " join o.orderItems oi" +
-                        " join oi.item i", OrderFlatDto.class)
+                        " join oi.item i" +
+                        " order by o.id", OrderFlatDto.class)
                 .getResultList();
     }
+
+    /**
+     * findAllByDto_flat을 리스트로 만들지 않고 forward-only 커서로 한 줄씩 읽는다.
+     * -> order id 순으로 정렬해서 내려주기 때문에 같은 주문의 row는 항상 연속으로 나온다.
+     * 트랜잭션(커넥션)이 열려 있는 동안만 사용할 수 있고, 다 쓰고 나면 반드시 close 해야 한다.
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat(int fetchSize) {
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)" +
+                        " from Order o" +
+                        " join o.member m" +
+                        " join o.delivery d" +
+                        " join o.orderItems oi" +
+                        " join oi.item i" +
+                        " order by o.id", OrderFlatDto.class)
+                .setHint(QueryHints.FETCH_SIZE, fetchSize) // 드라이버가 fetchSize만큼씩 끊어서 가져온다.
+                .setHint(QueryHints.READ_ONLY, true)
+                .getResultStream();
+    }
 }
@@ -2,8 +2,10 @@ package jpabook.jpashop.repository.order.simpleQuery;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
 import java.util.List;
 
 
@@ -13,6 +15,7 @@ import java.util.List;
  */
 @Repository
 @RequiredArgsConstructor
+@Transactional(readOnly = true) // api 컨트롤러에서 바로 호출해도 readOnly 트랜잭션 -> replica로 라우팅
 public class OrderSimpleQueryRepository {
     private final EntityManager em;
 
@@ -26,4 +29,26 @@ public class OrderSimpleQueryRepository {
                                 " join o.delivery d", OrderSimpleQueryDto.class)
                 .getResultList();
     }
+
+    /**
+     * keyset(seek) 페이징 버전 -> order id 순으로 lastOrderId 다음부터 limit개
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos(Long lastOrderId, int limit) {
+        String jpql = "select new jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)" +
+                " from Order o" +
+                " join o.member m" +
+                " join o.delivery d";
+        if (lastOrderId != null) {
+            jpql += " where o.id > :lastOrderId";
+        }
+        jpql += " order by o.id";
+
+        TypedQuery<OrderSimpleQueryDto> query = em.createQuery(jpql, OrderSimpleQueryDto.class)
+                .setMaxResults(limit);
+        if (lastOrderId != null) {
+            query.setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
 }
@@ -0,0 +1,126 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.exception.InvalidRequestException;
+import jpabook.jpashop.repository.CategoryRepository;
+import jpabook.jpashop.repository.ItemRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class CategoryService {
+    private final CategoryRepository categoryRepository;
+    private final ItemRepository itemRepository;
+    private final CategoryTreeCache categoryTreeCache;
+
+    /**
+     * 카테고리 추가
+     * @param name
+     * @param parentId 최상위 카테고리면 null
+     * @return categoryId
+     */
+    @Transactional
+    public Long addCategory(String name, Long parentId) {
+        categoryRepository.lockTreeVersion().increase(); // 동시에 추가해도 번호 매기기는 하나씩 (다른 인스턴스 포함)
+
+        Category category = new Category();
+        category.setName(name);
+        if (parentId != null) {
+            Category parent = findCategory(parentId);
+            parent.addChildCategory(category);
+        }
+        categoryRepository.save(category);
+
+        renumber(); // 트리 모양이 바뀌었으니 nested set 번호를 다시 매긴다.
+        return category.getId();
+    }
+
+    /**
+     * 카테고리에 상품 추가 -> 트리 모양은 그대로라서 번호를 다시 매기지 않는다.
+     */
+    @Transactional
+    public void addItem(Long categoryId, Long itemId) {
+        Category category = findCategory(categoryId);
+        Item item = itemRepository.findOne(itemId);
+        if (item == null) {
+            throw new InvalidRequestException("존재하지 않는 상품입니다. itemId=" + itemId);
+        }
+        category.getItems().add(item);
+        item.getCategories().add(category);
+    }
+
+    /**
+     * 시작할 때 번호를 한 번 맞추고 트리 스냅샷을 만든다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void initTree() {
+        categoryRepository.lockTreeVersion().increase();
+        renumber();
+    }
+
+    // 트리 조회 (DB 조회 없음)
+    public CategoryTree getTree() {
+        return categoryTreeCache.get();
+    }
+
+    /**
+     * 카테고리와 그 하위 카테고리 전체의 상품 -> 깊이와 상관없이 lft 범위 쿼리 1번
+     * @param lastItemId 이전 페이지의 마지막 item id (첫 페이지면 null)
+     */
+    public List<Item> findItems(Long categoryId, Long lastItemId, int limit) {
+        CategoryTree.Node node = categoryTreeCache.get().get(categoryId);
+        if (node == null) {
+            throw new InvalidRequestException("존재하지 않는 카테고리입니다. categoryId=" + categoryId);
+        }
+        return itemRepository.findAllInCategoryRange(node.getLft(), node.getRgt(), lastItemId, limit);
+    }
+
+    private Category findCategory(Long categoryId) {
+        Category category = categoryRepository.findOne(categoryId);
+        if (category == null) {
+            throw new InvalidRequestException("존재하지 않는 카테고리입니다. categoryId=" + categoryId);
+        }
+        return category;
+    }
+
+    /**
+     * 전체 카테고리를 한 번 읽어서 깊이 우선으로 lft, rgt를 다시 매긴다. (트리 버전 락을 잡은 상태에서만 호출)
+     * 값이 바뀐 카테고리만 변경 감지로 update 되고(jdbc batch), 커밋 후 트리 스냅샷을 다시 만든다.
+     */
+    private void renumber() {
+        List<Category> categories = categoryRepository.findAll();
+        Map<Long, List<Category>> children = new HashMap<>();
+        List<Category> roots = new ArrayList<>();
+        for (Category category : categories) {
+            if (category.getParent() == null) {
+                roots.add(category);
+            } else {
+                children.computeIfAbsent(category.getParent().getId(), id -> new ArrayList<>()).add(category);
+            }
+        }
+
+        int counter = 0;
+        for (Category root : roots) {
+            counter = number(root, 0, counter, children);
+        }
+        categoryTreeCache.rebuildAfterCommit();
+    }
+
+    private int number(Category category, int depth, int counter, Map<Long, List<Category>> children) {
+        int lft = ++counter;
+        for (Category child : children.getOrDefault(category.getId(), Collections.emptyList())) {
+            counter = number(child, depth + 1, counter, children);
+        }
+        category.renumber(lft, ++counter, depth);
+        return counter;
+    }
+}
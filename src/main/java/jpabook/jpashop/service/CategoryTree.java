@@ -0,0 +1,108 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * 카테고리 트리 스냅샷 (불변) -> 만든 뒤에는 바뀌지 않기 때문에 여러 스레드가 락 없이 읽는다.
+ * 노드마다 nested set 구간(lft, rgt)을 가지고 있어서 "A가 B의 하위인가"는 구간 비교 한 번으로 끝난다.
+ */
+public final class CategoryTree {
+    public static final CategoryTree EMPTY = new CategoryTree(Collections.emptyMap(), Collections.emptyList());
+
+    private final Map<Long, Node> nodes;
+    private final List<Node> roots;
+
+    private CategoryTree(Map<Long, Node> nodes, List<Node> roots) {
+        this.nodes = nodes;
+        this.roots = roots;
+    }
+
+    /**
+     * @param categories lft, rgt가 매겨진 전체 카테고리
+     */
+    static CategoryTree of(List<Category> categories) {
+        List<Category> sorted = new ArrayList<>(categories);
+        sorted.sort(Comparator.comparingInt(Category::getLft)); // 부모가 항상 자식보다 먼저 나온다.
+
+        Map<Long, Node> nodes = new HashMap<>();
+        List<Node> roots = new ArrayList<>();
+        for (Category category : sorted) {
+            Long parentId = category.getParent() == null ? null : category.getParent().getId(); // 프록시 id -> 초기화하지 않는다.
+            Node node = new Node(category.getId(), category.getName(), parentId,
+                    category.getLft(), category.getRgt(), category.getDepth());
+            nodes.put(node.id, node);
+
+            Node parent = parentId == null ? null : nodes.get(parentId);
+            if (parent == null) {
+                roots.add(node);
+            } else {
+                parent.children.add(node);
+            }
+        }
+        return new CategoryTree(Collections.unmodifiableMap(nodes), Collections.unmodifiableList(roots));
+    }
+
+    public Node get(Long categoryId) {
+        return nodes.get(categoryId);
+    }
+
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * 최상위 카테고리부터 categoryId까지의 경로
+     */
+    public List<Node> getPath(Long categoryId) {
+        LinkedList<Node> path = new LinkedList<>();
+        for (Node node = nodes.get(categoryId); node != null; node = node.parentId == null ? null : nodes.get(node.parentId)) {
+            path.addFirst(node);
+        }
+        return path;
+    }
+
+    @Getter
+    public static final class Node {
+        private final Long id;
+        private final String name;
+        private final Long parentId;
+        private final int lft;
+        private final int rgt;
+        private final int depth;
+        private final List<Node> children = new ArrayList<>(); // 스냅샷을 만드는 동안에만 추가된다.
+
+        private Node(Long id, String name, Long parentId, int lft, int rgt, int depth) {
+            this.id = id;
+            this.name = name;
+            this.parentId = parentId;
+            this.lft = lft;
+            this.rgt = rgt;
+            this.depth = depth;
+        }
+
+        public List<Node> getChildren() {
+            return Collections.unmodifiableList(children);
+        }
+
+        /**
+         * other가 이 카테고리이거나 그 하위 카테고리인지
+         */
+        public boolean contains(Node other) {
+            return lft <= other.lft && other.rgt <= rgt;
+        }
+
+        /**
+         * 하위 카테고리 전체 수 (자기 자신 제외)
+         */
+        public int getDescendantCount() {
+            return (rgt - lft - 1) / 2;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.CategoryRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 카테고리 트리 스냅샷 보관
+ * 카테고리가 바뀐 트랜잭션이 커밋되면 전체를 한 번 조회해서 새 스냅샷을 만들고 참조만 바꾼다.
+ * -> 읽는 쪽은 항상 완성된 트리(이전 것 또는 새 것)만 본다.
+ * 다른 인스턴스에서 바뀐 경우: refresh-ms마다 트리 버전(CategoryTreeVersion)만 읽고, 스냅샷의 버전과 다르면 다시 만든다.
+ * -> 다른 인스턴스의 변경은 최대 refresh-ms 늦게 보인다.
+ */
+@Component
+public class CategoryTreeCache {
+    private final AtomicReference<CategoryTree> tree = new AtomicReference<>(CategoryTree.EMPTY);
+    private volatile long version = -1; // 현재 스냅샷을 만들 때 읽은 트리 버전
+    private final CategoryRepository categoryRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public CategoryTreeCache(CategoryRepository categoryRepository, PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        // 커밋 직후(afterCommit)에도 실행되므로 새 트랜잭션, 방금 쓴 데이터를 읽어야 하므로 readOnly가 아닌(primary) 트랜잭션
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public CategoryTree get() {
+        return tree.get();
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 다시 만든다. (트랜잭션 밖이면 바로)
+     */
+    public void rebuildAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                rebuild();
+            }
+        });
+    }
+
+    /**
+     * synchronized: 동시에 커밋된 변경이 있어도 나중에 실행된 rebuild가 최신 상태를 읽고 마지막에 반영한다.
+     */
+    public synchronized void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> {
+            long current = categoryRepository.findTreeVersion(); // 트리보다 먼저 읽는다. -> 사이에 바뀌면 다음 refresh에서 다시 만든다.
+            tree.set(CategoryTree.of(categoryRepository.findAll()));
+            version = current;
+        });
+    }
+
+    /**
+     * 다른 인스턴스에서 트리가 바뀌었으면 다시 만든다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.category.tree-refresh-ms:5000}")
+    public void refreshIfChanged() {
+        Long current = transactionTemplate.execute(status -> categoryRepository.findTreeVersion());
+        if (current != null && current != version) {
+            rebuild();
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * 시작할 때 상품 검색 인덱스를 DB 기준으로 다시 만든다. (인덱스 디렉터리를 지웠거나 DB를 직접 바꾼 경우)
+ * 평소에는 커밋 시 자동 색인이라 필요 없다.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "jpashop.search.reindex-on-startup", havingValue = "true")
+public class ItemSearchIndexer {
+    private final EntityManagerFactory entityManagerFactory;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reindex() throws InterruptedException {
+        long start = System.currentTimeMillis();
+        Search.mapping(entityManagerFactory).scope(Object.class).massIndexer()
+                .startAndWait();
+        log.info("상품 검색 인덱스 재생성 완료. {}ms", System.currentTimeMillis() - start);
+    }
+}
@@ -2,6 +2,8 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Item;
 import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.item.search.ItemSearchRepository;
+import jpabook.jpashop.repository.item.search.ItemSearchResult;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -13,19 +15,26 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ItemService {
     private final ItemRepository itemRepository;
+    private final ItemSearchRepository itemSearchRepository;
+    private final StockReservationService stockReservationService;
+    private final ResourceVersions resourceVersions;
 
     @Transactional // readOnly면 저장이 안됨
     public void saveItem(Item item) {
         itemRepository.save(item);
+        resourceVersions.bumpAfterCommit(ResourceVersions.Resource.ITEM); // 주문 조회 API(상품명) ETag 변경
     }
 
     @Transactional
     public Item updateItem(Long itemId, String name, int price, int stockQuantity) { // 서비스 계층에서 영속 상태의 엔티티를 조회하고 엔티티의 데이터를 직접 변경한다.
         Item item = itemRepository.findOne(itemId);
+        int oldStockQuantity = item.getStockQuantity();
         // set으로 넣는 것은 예제일 뿐. findItem.change(price, name, stockQuantity);와 같이 의미있는 메서드를 호출하는게 좋다.
         item.setPrice(price);
         item.setName(name);
         item.setStockQuantity(stockQuantity);
+        stockReservationService.adjust(itemId, oldStockQuantity, stockQuantity); // 메모리 재고 카운터에도 바뀐 만큼 반영 (선점 중인 주문은 유지)
+        resourceVersions.bumpAfterCommit(ResourceVersions.Resource.ITEM);
         return item;
     }
 
@@ -36,4 +45,12 @@ public class ItemService {
     public Item findOne(Long itemId) {
         return itemRepository.findOne(itemId);
     }
+
+    /**
+     * 상품 검색 (이름, 저자, isbn, 아티스트, 감독, 배우) -> 앞부분 일치, 오타 허용, 점수순
+     * 색인은 saveItem, updateItem이 커밋될 때 자동으로 반영된다.
+     */
+    public ItemSearchResult searchItems(String keyword, int offset, int limit) {
+        return itemSearchRepository.search(keyword, offset, limit);
+    }
 }
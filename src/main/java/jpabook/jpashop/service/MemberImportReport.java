@@ -0,0 +1,63 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 회원 일괄 등록 결과 -> 건수, 처리 속도(rows/s), 실패한 줄과 사유
+ */
+@Getter
+public class MemberImportReport {
+    private static final int MAX_REPORTED_ERRORS = 1000; // 응답이 너무 커지지 않도록 앞쪽 실패만 자세히
+
+    private long totalRows;
+    private long importedRows;
+    private long failedRows;
+    private long elapsedMillis;
+    private long rowsPerSecond;
+    private boolean errorsTruncated;
+    private final List<RowError> errors = new ArrayList<>();
+
+    void row() {
+        totalRows++;
+    }
+
+    void imported(int count) {
+        importedRows += count;
+    }
+
+    void fail(long lineNumber, String name, String reason) {
+        failedRows++;
+        if (errors.size() < MAX_REPORTED_ERRORS) {
+            errors.add(new RowError(lineNumber, name, reason));
+        } else {
+            errorsTruncated = true;
+        }
+    }
+
+    void finish(long elapsedNanos) {
+        elapsedMillis = TimeUnit.NANOSECONDS.toMillis(elapsedNanos);
+        rowsPerSecond = elapsedNanos == 0 ? 0 : totalRows * TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+    }
+
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    @Getter
+    public static class RowError {
+        private final long lineNumber;
+        private final String name;
+        private final String reason;
+
+        RowError(long lineNumber, String name, String reason) {
+            this.lineNumber = lineNumber;
+            this.name = name;
+            this.reason = reason;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 일괄 등록 (CSV, NDJSON)
+ * - 요청 body를 한 줄씩 읽어서 batchSize개씩 처리한다. -> 파일 크기와 상관없이 메모리 사용량이 일정하다.
+ * - 묶음마다 트랜잭션 1개: 이미 있는 이름을 in 쿼리 1번으로 거르고(bloom filter에 없는 이름은 조회 대상에서도 제외),
+ *   나머지는 persist -> FLUSH_INTERVAL건마다 flush(jdbc batch insert) + clear로 영속성 컨텍스트를 비운다.
+ * - 잘못된 줄, 중복 이름은 건너뛰고 줄 번호와 사유를 결과에 남긴다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+    private static final int FLUSH_INTERVAL = 100; // hibernate.jdbc.batch_size와 같게
+    private static final int MAX_NAME_LENGTH = 255;
+    private static final String CSV_HEADER = "name,city,street,zipcode";
+
+    public enum Format {
+        CSV, // name,city,street,zipcode (첫 줄이 정확히 이 헤더면 건너뜀 -> "nameless,..." 같은 회원은 그대로 등록)
+        NDJSON // {"name": "...", "city": "...", "street": "...", "zipcode": "..."} 한 줄에 하나
+    }
+
+    private final MemberRepository memberRepository;
+    private final MemberNameFilter memberNameFilter;
+    private final ResourceVersions resourceVersions;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public MemberImportService(MemberRepository memberRepository,
+                               MemberNameFilter memberNameFilter,
+                               ResourceVersions resourceVersions,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${jpashop.member.import.batch-size:500}") int batchSize) {
+        this.memberRepository = memberRepository;
+        this.memberNameFilter = memberNameFilter;
+        this.resourceVersions = resourceVersions;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    public MemberImportReport importMembers(Reader reader, Format format) throws IOException {
+        long start = System.nanoTime();
+        MemberImportReport report = new MemberImportReport();
+        BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        List<ImportRow> batch = new ArrayList<>(batchSize);
+        long lineNumber = 0;
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (format == Format.CSV && lineNumber == 1 && isCsvHeader(line))) {
+                continue;
+            }
+            report.row();
+            try {
+                batch.add(parse(line, lineNumber, format));
+            } catch (IllegalArgumentException e) {
+                report.fail(lineNumber, null, e.getMessage());
+            }
+            if (batch.size() == batchSize) {
+                importBatch(batch, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            importBatch(batch, report);
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        report.finish(elapsedNanos);
+        meterRegistry.counter("member.import.rows", "result", "imported").increment(report.getImportedRows());
+        meterRegistry.counter("member.import.rows", "result", "failed").increment(report.getFailedRows());
+        meterRegistry.timer("member.import").record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("회원 일괄 등록: {}건 중 {}건 등록, {}건 실패 ({} rows/s)",
+                report.getTotalRows(), report.getImportedRows(), report.getFailedRows(), report.getRowsPerSecond());
+        return report;
+    }
+
+    private static boolean isCsvHeader(String line) {
+        if (line.startsWith("\uFEFF")) { // 엑셀 등이 붙이는 UTF-8 BOM
+            line = line.substring(1);
+        }
+        return CSV_HEADER.equals(line.strip());
+    }
+
+    private void importBatch(List<ImportRow> rows, MemberImportReport report) {
+        // 같은 파일(묶음) 안의 중복은 첫 줄만 등록
+        Map<String, ImportRow> unique = new LinkedHashMap<>();
+        for (ImportRow row : rows) {
+            if (unique.putIfAbsent(row.name, row) != null) {
+                report.fail(row.lineNumber, row.name, "파일 안에서 중복된 이름입니다.");
+            }
+        }
+
+        BatchResult result;
+        try {
+            result = transactionTemplate.execute(status -> insertNew(unique, true));
+        } catch (DataIntegrityViolationException e) {
+            // 확인한 뒤 insert 전에 다른 곳(다른 인스턴스 포함)에서 같은 이름으로 가입한 경우
+            // -> 묶음 전체가 롤백되었으므로 bloom filter 없이 전부 다시 확인하고 한 번만 재시도
+            try {
+                result = transactionTemplate.execute(status -> insertNew(unique, false));
+            } catch (DataIntegrityViolationException retryFailure) {
+                unique.values().forEach(row -> report.fail(row.lineNumber, row.name, "저장하지 못했습니다. (동시에 같은 이름이 등록됨)"));
+                return;
+            }
+        }
+
+        for (ImportRow row : result.existing) {
+            report.fail(row.lineNumber, row.name, "이미 존재하는 회원입니다.");
+        }
+        report.imported(result.inserted.size());
+        result.inserted.forEach(memberNameFilter::put);
+        if (!result.inserted.isEmpty()) {
+            resourceVersions.bumpAfterCommit(ResourceVersions.Resource.MEMBER); // 이미 커밋됨 -> 바로 올라간다.
+        }
+    }
+
+    private BatchResult insertNew(Map<String, ImportRow> rows, boolean useNameFilter) {
+        // bloom filter가 "확실히 없다"고 한 이름은 조회하지 않는다.
+        List<String> candidates = rows.keySet().stream()
+                .filter(name -> !useNameFilter || memberNameFilter.mightContain(name))
+                .collect(Collectors.toList());
+        Set<String> existingNames = candidates.isEmpty() ? Collections.emptySet() : new HashSet<>(memberRepository.findExistingNames(candidates));
+
+        BatchResult result = new BatchResult();
+        int pending = 0;
+        for (ImportRow row : rows.values()) {
+            if (existingNames.contains(row.name)) {
+                result.existing.add(row);
+                continue;
+            }
+            Member member = new Member();
+            member.setName(row.name);
+            member.setAddress(row.address);
+            memberRepository.save(member); // 시퀀스로 id만 받아두고 insert는 flush 때 batch로
+            result.inserted.add(row.name);
+
+            if (++pending == FLUSH_INTERVAL) {
+                memberRepository.flush();
+                memberRepository.clear();
+                pending = 0;
+            }
+        }
+        memberRepository.flush();
+        memberRepository.clear();
+        return result;
+    }
+
+    private ImportRow parse(String line, long lineNumber, Format format) {
+        String[] fields = format == Format.CSV ? parseCsv(line) : parseJson(line);
+        String name = fields[0] == null ? null : fields[0].trim();
+        if (!StringUtils.hasText(name)) {
+            throw new IllegalArgumentException("이름이 비어 있습니다.");
+        }
+        if (name.length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("이름이 너무 깁니다. (최대 " + MAX_NAME_LENGTH + "자)");
+        }
+        return new ImportRow(lineNumber, name, new Address(fields[1], fields[2], fields[3]));
+    }
+
+    /**
+     * name,city,street,zipcode -> 따옴표("a,b")와 따옴표 이스케이프("")를 지원한다.
+     */
+    private static String[] parseCsv(String line) {
+        String[] fields = new String[4];
+        StringBuilder field = new StringBuilder();
+        int index = 0;
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (index == fields.length - 1) {
+                    throw new IllegalArgumentException("컬럼이 너무 많습니다. (name,city,street,zipcode)");
+                }
+                fields[index++] = emptyToNull(field);
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("따옴표가 닫히지 않았습니다.");
+        }
+        fields[index] = emptyToNull(field);
+        return fields;
+    }
+
+    private String[] parseJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("json 형식이 아닙니다: " + e.getOriginalMessage());
+        }
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("json 객체가 아닙니다.");
+        }
+        return new String[]{text(node, "name"), text(node, "city"), text(node, "street"), text(node, "zipcode")};
+    }
+
+    private static String text(JsonNode node, String field) {
+        JsonNode value = node.get(field);
+        return value == null || value.isNull() ? null : value.asText();
+    }
+
+    private static String emptyToNull(StringBuilder field) {
+        return field.length() == 0 ? null : field.toString();
+    }
+
+    private static class ImportRow {
+        private final long lineNumber;
+        private final String name;
+        private final Address address;
+
+        ImportRow(long lineNumber, String name, Address address) {
+            this.lineNumber = lineNumber;
+            this.name = name;
+            this.address = address;
+        }
+    }
+
+    private static class BatchResult {
+        private final List<String> inserted = new ArrayList<>();
+        private final List<ImportRow> existing = new ArrayList<>();
+    }
+}
@@ -0,0 +1,85 @@
+package jpabook.jpashop.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 이미 사용 중인 회원 이름의 bloom filter
+ * - mightContain이 false면 그 이름은 확실히 없다. -> 회원 가입 시 중복 검사 SELECT를 생략한다.
+ * - true면 있을 수도 있다. (오탐 확률 fpp) -> 기존처럼 SELECT로 확인
+ * 비트는 켜기만 하고 끄지 않는다. (이름 변경/롤백으로 남은 이름은 오탐이 될 뿐)
+ * 최종 중복 판정은 member.name unique 제약이 한다. -> 동시 가입이나 필터가 놓친 경우도 DB에서 막힌다.
+ */
+@Component
+public class MemberNameFilter {
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private volatile boolean loaded; // 시작 시 기존 이름을 다 넣기 전에는 항상 "있을 수도 있음"
+
+    public MemberNameFilter(@Value("${jpashop.member.name-filter.expected-insertions:1000000}") int expectedInsertions,
+                            @Value("${jpashop.member.name-filter.fpp:0.01}") double fpp) {
+        // m = -n * ln(p) / (ln 2)^2, k = m / n * ln 2
+        long m = (long) Math.ceil(-Math.max(expectedInsertions, 1) * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / Math.max(expectedInsertions, 1) * Math.log(2)));
+    }
+
+    public boolean mightContain(String name) {
+        if (!loaded || name == null) {
+            return true;
+        }
+        long h1 = hash(name);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1; // double hashing: i번째 해시 = h1 + i * h2
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public void put(String name) {
+        if (name == null) {
+            return;
+        }
+        long h1 = hash(name);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << index; // shift는 하위 6비트만 사용
+            bits.getAndAccumulate((int) (index >>> 6), mask, (word, bit) -> word | bit);
+        }
+    }
+
+    /**
+     * 기존 이름을 모두 넣은 뒤 호출 -> 이때부터 mightContain이 false를 돌려줄 수 있다.
+     * 적재 중에 가입한 이름도 put으로 같이 들어가므로 빠지는 이름이 없다.
+     */
+    public void markLoaded() {
+        loaded = true;
+    }
+
+    private static long hash(String name) { // FNV-1a 64 + 마무리 섞기
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < name.length(); i++) {
+            h ^= name.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) { // murmur3 fmix64
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93fe1a85ec3L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -2,12 +2,20 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Service
 // transactional안에서 데이터 변경하는게 있어야 LAZY등이 적용이 된다.
@@ -15,19 +23,46 @@ import java.util.List;
 @RequiredArgsConstructor
 public class MemberService {
     private final MemberRepository memberRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final ResourceVersions resourceVersions;
+    private final MemberNameFilter memberNameFilter;
+    private final MemberQueryRepository memberQueryRepository;
 
     /**
      * 회원 가입
+     * 중복 판정은 member.name unique 제약 -> 동시에 같은 이름으로 가입해도 하나만 성공한다.
+     * bloom filter에 없는 이름(대부분의 새 이름)은 중복 검사 SELECT 없이 바로 insert
      * @param member
      * @return
      */
     @Transactional
     public Long join(Member member) {
-        validateDuplicateMember(member); // 중복회원 검증
-        memberRepository.save(member);
+        if (memberNameFilter.mightContain(member.getName())) {
+            validateDuplicateMember(member); // 중복회원 검증 (있을 수도 있는 이름만)
+        }
+        try {
+            memberRepository.save(member);
+            memberRepository.flush(); // 제약 위반을 커밋이 아니라 여기서 확인
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e); // 원인(제약 이름, sql)은 로그에서 확인
+        }
+        memberNameFilter.put(member.getName()); // 롤백되더라도 오탐(SELECT 1번)이 될 뿐
+        resourceVersions.bumpAfterCommit(ResourceVersions.Resource.MEMBER); // 회원/주문 조회 API ETag 변경
         return member.getId();
     }
 
+    /**
+     * 시작할 때 기존 회원 이름을 모두 bloom filter에 넣는다.
+     * 그 전까지는 mightContain이 항상 true -> 기존처럼 SELECT로 검사
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void initNameFilter() {
+        try (Stream<String> names = memberRepository.streamNames(1000)) {
+            names.forEach(memberNameFilter::put);
+        }
+        memberNameFilter.markLoaded();
+    }
+
     private void validateDuplicateMember(Member member) {
         List<Member> findMembers = memberRepository.findByName(member.getName());
         if (!findMembers.isEmpty()) {
@@ -40,6 +75,14 @@ public class MemberService {
         return memberRepository.findAll();
     }
 
+    /**
+     * 회원 목록 keyset 페이징 -> 요청한 필드만 조회 (엔티티를 만들지 않음)
+     * @param lastMemberId 이전 페이지의 마지막 member id (첫 페이지면 null)
+     */
+    public List<MemberQueryDto> findMemberPage(Collection<String> fields, Long lastMemberId, int limit) {
+        return memberQueryRepository.findMembers(fields, lastMemberId, limit);
+    }
+
     public Member findOne(Long memberId) {
         return memberRepository.findOne(memberId);
     }
@@ -48,7 +91,14 @@ public class MemberService {
     public void update(Long id, String name) { // 변경 감지
         Member member = memberRepository.findOne(id); // 1. 영속성 컨텍스트에서 member 조회(없으면 DB에서 조회) -> Transactional이 있는 상태에서 조회하면 영속성 컨텍스트에서 가져옴.
         member.setName(name); // 2. 영속성 엔티티 값 변경
-        // 3. 변경 감지(dirty checking) flush
+        orderSummaryRepository.updateMemberName(id, name); // order_summary에 복사해 둔 회원명도 변경
+        try {
+            memberRepository.flush(); // 3. 변경 감지(dirty checking) flush -> unique 제약 위반을 커밋 전에 확인
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("이미 존재하는 회원입니다.", e); // 원인(제약 이름, sql)은 로그에서 확인
+        }
+        memberNameFilter.put(name);
+        resourceVersions.bumpAfterCommit(ResourceVersions.Resource.MEMBER);
         // 4. Transaction commit
     }
 }
@@ -0,0 +1,139 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 같은 상품에 대한 동시 주문을 모아서 한 번에 처리한다. (combining)
+ * 상품별로 열려 있는 묶음에 주문을 넣고, 묶음의 첫 주문 스레드(leader)가 windowMillis 동안 또는 maxBatchSize건이 찰 때까지 기다렸다가
+ * 묶음 전체를 한 트랜잭션으로 실행한다. 나머지 스레드는 자기 주문의 결과(orderId 또는 예외)만 기다린다.
+ * -> item row 하나를 두고 트랜잭션 수천 개가 줄을 서던 것이 묶음당 재고 update 1번 + batch insert로 바뀐다.
+ * 스레드를 따로 만들지 않고 요청 스레드가 leader가 되어 실행한다.
+ */
+class OrderCombiner {
+    private final ConcurrentMap<Long, Batch> openBatches = new ConcurrentHashMap<>();
+    private final long windowNanos;
+    private final int maxBatchSize;
+    private final Function<List<OrderCommand>, List<OrderOutcome>> batchExecutor;
+    private final DistributionSummary batchSizes;
+
+    OrderCombiner(long windowMillis, int maxBatchSize,
+                  Function<List<OrderCommand>, List<OrderOutcome>> batchExecutor,
+                  DistributionSummary batchSizes) {
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.maxBatchSize = maxBatchSize;
+        this.batchExecutor = batchExecutor;
+        this.batchSizes = batchSizes;
+    }
+
+    /**
+     * @return orderId
+     * @throws jpabook.jpashop.exception.NotEnoughStockException 이 주문을 처리할 재고가 부족한 경우
+     */
+    Long order(OrderCommand command) {
+        Request request = new Request(command);
+        Long itemId = command.getItemId();
+
+        while (true) {
+            Batch batch = openBatches.computeIfAbsent(itemId, id -> new Batch());
+            boolean leader;
+            synchronized (batch) {
+                if (batch.closed) { // leader가 방금 닫은 묶음 -> 새 묶음에 들어간다.
+                    continue;
+                }
+                batch.requests.add(request);
+                leader = batch.requests.size() == 1;
+                if (batch.requests.size() >= maxBatchSize) {
+                    close(itemId, batch);
+                    batch.notifyAll(); // 가득 찼으니 leader를 깨운다.
+                }
+            }
+            if (leader) {
+                execute(itemId, batch);
+            }
+            return request.await();
+        }
+    }
+
+    private void execute(Long itemId, Batch batch) {
+        List<Request> requests;
+        synchronized (batch) {
+            long deadline = System.nanoTime() + windowNanos;
+            while (!batch.closed) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    close(itemId, batch);
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(batch, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close(itemId, batch); // 모인 주문은 그대로 처리한다.
+                }
+            }
+            requests = new ArrayList<>(batch.requests);
+        }
+
+        batchSizes.record(requests.size());
+        List<OrderCommand> commands = new ArrayList<>(requests.size());
+        requests.forEach(r -> commands.add(r.command));
+        try {
+            List<OrderOutcome> outcomes = batchExecutor.apply(commands);
+            for (int i = 0; i < requests.size(); i++) {
+                requests.get(i).complete(outcomes.get(i));
+            }
+        } catch (RuntimeException e) {
+            requests.forEach(r -> r.future.completeExceptionally(e)); // 트랜잭션 전체가 실패하면 모두 같은 예외
+        } finally {
+            IllegalStateException notCompleted = new IllegalStateException("주문이 처리되지 않았습니다.");
+            requests.forEach(r -> r.future.completeExceptionally(notCompleted)); // 이미 완료된 주문에는 영향 없음
+        }
+    }
+
+    private void close(Long itemId, Batch batch) {
+        batch.closed = true;
+        openBatches.remove(itemId, batch);
+    }
+
+    private static class Batch {
+        private final List<Request> requests = new ArrayList<>();
+        private boolean closed;
+    }
+
+    private static class Request {
+        private final OrderCommand command;
+        private final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        private Request(OrderCommand command) {
+            this.command = command;
+        }
+
+        private void complete(OrderOutcome outcome) {
+            if (outcome.isSuccess()) {
+                future.complete(outcome.getOrderId());
+            } else {
+                future.completeExceptionally(outcome.getFailure());
+            }
+        }
+
+        private Long await() {
+            try {
+                return future.get();
+            } catch (ExecutionException e) {
+                throw (RuntimeException) e.getCause(); // completeExceptionally에는 RuntimeException만 넘긴다.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("주문 처리 대기 중 인터럽트 되었습니다.", e);
+            }
+        }
+    }
+}
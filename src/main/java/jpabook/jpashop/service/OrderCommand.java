@@ -0,0 +1,15 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 주문 1건의 요청 정보 (회원, 상품, 수량) -> 여러 건을 한 번에 주문할 때 사용
+ */
+@Getter
+@AllArgsConstructor
+public class OrderCommand {
+    private Long memberId;
+    private Long itemId;
+    private int count;
+}
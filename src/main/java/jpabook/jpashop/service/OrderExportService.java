@@ -0,0 +1,48 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.repository.order.query.FlatOrderAssembler;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.stream.Stream;
+
+/**
+ * 전체 주문 export (야간 정산용)
+ * 조회 결과를 List로 모으지 않고 커서로 읽으면서 주문 단위로 바로 응답에 써버린다.
+ * -> 메모리에는 현재 만들고 있는 주문 1건만 올라가기 때문에 주문 수와 상관없이 힙 사용량이 일정하다.
+ */
+@Service
+@Transactional(readOnly = true) // 스트림을 다 읽을 때까지 커넥션이 열려 있어야 한다.
+@RequiredArgsConstructor
+public class OrderExportService {
+    private static final int FETCH_SIZE = 1000;
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 주문 전체를 json 배열로 out에 쓴다.
+     * @return 내보낸 주문 수
+     */
+    public long exportAll(OutputStream out) throws IOException {
+        long count;
+        try (Stream<OrderFlatDto> rows = orderQueryRepository.streamAllByDto_flat(FETCH_SIZE);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // 응답 스트림은 컨테이너가 닫는다.
+            generator.writeStartArray();
+
+            // row가 order id 순으로 오기 때문에 id가 바뀌는 시점에 이전 주문이 완성된 것이다.
+            count = FlatOrderAssembler.forEachOrder(rows.iterator(), generator::writeObject);
+
+            generator.writeEndArray();
+        }
+        return count;
+    }
+}
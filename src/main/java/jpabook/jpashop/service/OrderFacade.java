@@ -0,0 +1,116 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.OptimisticLockException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 주문/취소를 낙관적 락 충돌 시 재시도해주는 facade
+ * 재시도는 트랜잭션 밖에서 해야 매번 새 트랜잭션(새 영속성 컨텍스트)으로 최신 버전을 다시 읽는다.
+ * -> 그래서 @Transactional이 걸린 OrderService를 감싸는 별도 빈으로 둔다.
+ * 비관적 락처럼 커넥션을 잡고 기다리지 않고, 충돌한 요청만 잠깐 쉬었다가 다시 시도한다.
+ * jpashop.order.combining.enabled=true면 같은 상품 주문을 모아서 한 트랜잭션으로 처리한다. (OrderCombiner 참고)
+ */
+@Slf4j
+@Component
+public class OrderFacade {
+    private final OrderService orderService;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+    private final OrderCombiner orderCombiner; // 사용하지 않으면 null
+
+    public OrderFacade(OrderService orderService,
+                       MeterRegistry meterRegistry,
+                       @Value("${jpashop.order.retry.max-attempts:5}") int maxAttempts,
+                       @Value("${jpashop.order.retry.backoff-ms:20}") long backoffMillis,
+                       @Value("${jpashop.order.retry.max-backoff-ms:200}") long maxBackoffMillis,
+                       @Value("${jpashop.order.combining.enabled:false}") boolean combiningEnabled,
+                       @Value("${jpashop.order.combining.window-ms:5}") long combiningWindowMillis,
+                       @Value("${jpashop.order.combining.max-batch-size:100}") int combiningMaxBatchSize) {
+        this.orderService = orderService;
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = maxAttempts;
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.orderCombiner = combiningEnabled
+                ? new OrderCombiner(combiningWindowMillis, combiningMaxBatchSize,
+                        commands -> executeWithRetry("orderCombined", () -> orderService.orderEach(commands)),
+                        DistributionSummary.builder("order.combined.batch.size").register(meterRegistry))
+                : null;
+    }
+
+    public Long order(Long memberId, Long itemId, int count) {
+        if (orderCombiner != null) {
+            return orderCombiner.order(new OrderCommand(memberId, itemId, count));
+        }
+        return executeWithRetry("order", () -> orderService.order(memberId, itemId, count));
+    }
+
+    /**
+     * 대량 주문 -> 인기 상품 하나의 버전 충돌로 전체가 롤백되면 처음부터 다시 시도한다.
+     */
+    public List<Long> orderAll(List<OrderCommand> commands) {
+        return executeWithRetry("orderAll", () -> orderService.orderAll(commands));
+    }
+
+    public void cancelOrder(Long orderId) {
+        executeWithRetry("cancel", () -> {
+            orderService.cancelOrder(orderId);
+            return null;
+        });
+    }
+
+    /**
+     * 낙관적 락 충돌이면 최대 maxAttempts번까지 다시 실행한다.
+     * 대기 시간은 지수적으로 늘리되 maxBackoffMillis를 넘지 않고, 동시에 다시 몰리지 않도록 jitter를 준다.
+     * @param operation 메트릭 tag로 사용할 작업 이름
+     */
+    public <T> T executeWithRetry(String operation, Supplier<T> action) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | OptimisticLockException e) {
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("order.optimistic.lock.exhausted", "operation", operation).increment();
+                    throw e;
+                }
+                meterRegistry.counter("order.optimistic.lock.retry", "operation", operation).increment();
+                log.debug("낙관적 락 충돌로 재시도합니다. operation={}, attempt={}", operation, attempt);
+                sleep(attempt);
+            }
+        }
+    }
+
+    private void sleep(int attempt) {
+        long backoff = backoffOf(attempt);
+        long jitter = ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        try {
+            Thread.sleep(backoff / 2 + jitter);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("재시도 대기 중 인터럽트 되었습니다.", e);
+        }
+    }
+
+    /**
+     * attempt번째 실패 후 대기 시간 = backoffMillis * 2^(attempt-1), 최대 maxBackoffMillis
+     * shift로 계산하면 attempt가 크면(64 이상 등) overflow로 음수/0이 되므로 상한에 닿을 때까지만 두 배씩 늘린다.
+     */
+    long backoffOf(int attempt) {
+        long backoff = Math.min(backoffMillis, maxBackoffMillis);
+        for (int i = 1; i < attempt && backoff < maxBackoffMillis; i++) {
+            backoff = backoff > maxBackoffMillis / 2 ? maxBackoffMillis : backoff * 2;
+        }
+        return Math.max(0, backoff);
+    }
+}
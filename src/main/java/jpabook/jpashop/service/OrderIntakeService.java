@@ -0,0 +1,152 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * 비동기 주문 접수
+ * 요청 스레드는 검증된 주문을 크기가 정해진 대기열에 넣고 접수증만 받아 바로 응답한다. (대기열이 가득 차면 OrderQueueFullException -> 429)
+ * 워커는 대기열에서 최대 batchSize건씩 꺼내 상품 id 순으로 정렬한 뒤 한 트랜잭션(OrderService.orderEach)으로 처리한다.
+ * -> 같은 상품 주문이 한 트랜잭션에 모여서 item row update가 한 번으로 줄고, DB 커넥션은 워커 수만큼만 사용한다.
+ * 워커는 플랫폼 스레드 고정 풀 (Java 21 이상이면 Executors.newVirtualThreadPerTaskExecutor()로 바꿀 수 있다.)
+ */
+@Slf4j
+@Service
+public class OrderIntakeService {
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final OrderService orderService;
+    private final OrderFacade orderFacade;
+    private final BlockingQueue<OrderTicket> queue;
+    private final Map<String, OrderTicket> tickets = new ConcurrentHashMap<>();
+    private final ExecutorService workers;
+    private final int workerCount;
+    private final int batchSize;
+    private final long ticketRetentionMillis;
+    private volatile boolean running = true;
+
+    public OrderIntakeService(OrderService orderService,
+                              OrderFacade orderFacade,
+                              MeterRegistry meterRegistry,
+                              @Value("${jpashop.order.async.queue-capacity:10000}") int queueCapacity,
+                              @Value("${jpashop.order.async.workers:4}") int workerCount,
+                              @Value("${jpashop.order.async.batch-size:100}") int batchSize,
+                              @Value("${jpashop.order.async.ticket-retention-ms:600000}") long ticketRetentionMillis) {
+        this.orderService = orderService;
+        this.orderFacade = orderFacade;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.workerCount = workerCount;
+        this.batchSize = batchSize;
+        this.ticketRetentionMillis = ticketRetentionMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount, r -> new Thread(r, "order-intake-" + threadNumber.incrementAndGet()));
+        meterRegistry.gauge("order.intake.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::drain);
+        }
+    }
+
+    /**
+     * 주문을 대기열에 넣고 접수증을 발급한다. 기다리지 않는다.
+     * @throws OrderQueueFullException 대기열이 가득 찬 경우
+     */
+    public OrderTicket submit(OrderCommand command) {
+        OrderTicket ticket = new OrderTicket(command);
+        tickets.put(ticket.getId(), ticket);
+        if (!queue.offer(ticket)) {
+            tickets.remove(ticket.getId());
+            throw new OrderQueueFullException("주문 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.");
+        }
+        return ticket;
+    }
+
+    public OrderTicket findTicket(String ticketId) {
+        return tickets.get(ticketId);
+    }
+
+    private void drain() {
+        List<OrderTicket> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                OrderTicket first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                process(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void process(List<OrderTicket> batch) {
+        batch.sort(Comparator.comparing(ticket -> ticket.getCommand().getItemId())); // 같은 상품끼리 모으고, 트랜잭션끼리 같은 순서로 row를 잠근다.
+        List<OrderCommand> commands = batch.stream()
+                .map(OrderTicket::getCommand)
+                .collect(Collectors.toList());
+
+        List<OrderOutcome> outcomes;
+        try {
+            outcomes = orderFacade.executeWithRetry("orderEach", () -> orderService.orderEach(commands));
+        } catch (RuntimeException e) {
+            log.warn("비동기 주문 처리 실패. 건수={}", batch.size(), e);
+            batch.forEach(ticket -> ticket.fail("주문 처리 중 오류가 발생했습니다."));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            OrderOutcome outcome = outcomes.get(i);
+            if (outcome.isSuccess()) {
+                batch.get(i).complete(outcome.getOrderId());
+            } else {
+                batch.get(i).fail(outcome.getFailure().getMessage());
+            }
+        }
+    }
+
+    /**
+     * 처리가 끝나고 보관 기간이 지난 접수증을 지운다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.order.async.ticket-retention-ms:600000}")
+    public void evictExpiredTickets() {
+        long expiredBefore = System.currentTimeMillis() - ticketRetentionMillis;
+        tickets.values().removeIf(ticket -> ticket.isDone() && ticket.getCompletedAtMillis() < expiredBefore);
+    }
+
+    /**
+     * 종료 시 대기열에 남은 주문까지 처리하고 끝낸다.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("비동기 주문 워커가 종료되지 않았습니다. 남은 주문={}", queue.size());
+            workers.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.service;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * 여러 건을 주문할 때 1건의 결과 -> 성공이면 orderId, 실패면 failure
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class OrderOutcome {
+    private final Long orderId;
+    private final RuntimeException failure;
+
+    public static OrderOutcome success(Long orderId) {
+        return new OrderOutcome(orderId, null);
+    }
+
+    public static OrderOutcome failure(RuntimeException failure) {
+        return new OrderOutcome(null, failure);
+    }
+
+    public boolean isSuccess() {
+        return failure == null;
+    }
+}
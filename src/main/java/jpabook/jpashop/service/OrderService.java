@@ -1,23 +1,38 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.*;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.repository.ChunkedInLoader;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.OrderSummaryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @Transactional(readOnly = true)
 @RequiredArgsConstructor
 public class OrderService {
+    private static final int FLUSH_INTERVAL = 100; // hibernate.jdbc.batch_size와 같게
+
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final OrderSummaryRepository orderSummaryRepository;
+    private final StockReservationService stockReservationService;
+    private final ChunkedInLoader chunkedInLoader;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * 주문
@@ -30,27 +45,93 @@ public class OrderService {
     public Long order(Long memberId, Long itemId, int count) {
         // 엔티티 조회
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
-
-        // 배송정보 생성
-        Delivery delivery = new Delivery();
-        delivery.setAddress(member.getAddress());
+        Item item = itemRepository.findOneBypassCache(itemId); // 재고는 항상 DB 기준으로 차감
 
-        // 주문 상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), count);
-
-        // 주문 생성
-        Order order = Order.createOrder(member, delivery, orderItem);
+        // 배송정보, 주문상품, 주문 생성
+        Order order = createOrder(member, item, count);
 
         // 주문 저장
         orderRepository.save(order); // 원래라면 delivery도 생성 뒤에 저장하고 orderItem도 생성하고 save를 해줘야하는데,
         // Order에 cascade속성이 있어서 Order만 저장해도 모두 저장된다.
+        eventPublisher.publishEvent(new OrderCreatedEvent(order)); // order_summary 갱신
 
         // cascade의 범위: 현재 사용한 범위에서만 사용해야한다. -> 참조하는 주인이 private owner인 경우에만 쓴다.
         // => 이는 deliveery, orderItem은 order외에는 사용하지 않는다. order만 두 객체를 참조한다는 의미.
         return order.getId();
     }
 
+    /**
+     * 대량 주문 -> 한 트랜잭션에서 모두 주문하고, 하나라도 실패하면 전부 롤백된다. (낙관적 락 재시도는 OrderFacade.orderAll)
+     * - FLUSH_INTERVAL건씩 나눠서 처리: 그 묶음의 회원, 상품을 in 쿼리로 조회(ChunkedInLoader) -> 주문 생성 -> flush + clear
+     *   -> 주문이 1만 건이어도 영속성 컨텍스트에는 한 묶음만 남고, in 파라미터 수도 묶음 크기를 넘지 않는다.
+     * - clear 후에는 다음 묶음에서 상품을 다시 조회하므로 앞 묶음에서 차감한 재고(flush됨)를 읽는다.
+     * - id를 시퀀스(pooled)로 미리 받아두기 때문에 insert가 flush 시점까지 미뤄지고 hibernate.jdbc.batch_size 단위로 묶여서 나간다.
+     * @param commands
+     * @return 주문 순서대로의 orderId
+     */
+    @Transactional
+    public List<Long> orderAll(List<OrderCommand> commands) {
+        List<Long> orderIds = new ArrayList<>(commands.size());
+        for (int from = 0; from < commands.size(); from += FLUSH_INTERVAL) {
+            List<OrderCommand> batch = commands.subList(from, Math.min(from + FLUSH_INTERVAL, commands.size()));
+            // 수정할 엔티티(상품 재고)이므로 현재 트랜잭션에서 조회
+            Map<Long, Member> members = chunkedInLoader.loadInCurrentTransaction(distinct(batch, OrderCommand::getMemberId), memberRepository::findAllByIds).stream()
+                    .collect(Collectors.toMap(Member::getId, Function.identity()));
+            Map<Long, Item> items = chunkedInLoader.loadInCurrentTransaction(distinct(batch, OrderCommand::getItemId), itemRepository::findAllByIds).stream()
+                    .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+            for (OrderCommand command : batch) {
+                Member member = members.get(command.getMemberId());
+                Item item = items.get(command.getItemId());
+                if (member == null || item == null) {
+                    throw new IllegalArgumentException("존재하지 않는 회원 또는 상품입니다. memberId=" + command.getMemberId() + ", itemId=" + command.getItemId());
+                }
+
+                Order order = createOrder(member, item, command.getCount());
+                orderRepository.save(order);
+                eventPublisher.publishEvent(new OrderCreatedEvent(order));
+                orderIds.add(order.getId());
+            }
+            orderRepository.flush();
+            orderRepository.clear();
+        }
+        return orderIds;
+    }
+
+    /**
+     * 여러 건을 한 트랜잭션에서 주문하되, 1건의 실패(재고 부족, 없는 회원/상품)가 나머지를 롤백시키지 않는다.
+     * 재고 검증은 엔티티를 변경하기 전에 하기 때문에 실패한 주문은 영속성 컨텍스트에 아무것도 남기지 않는다.
+     * @param commands
+     * @return 주문 순서대로의 결과
+     */
+    @Transactional
+    public List<OrderOutcome> orderEach(List<OrderCommand> commands) {
+        Map<Long, Member> members = memberRepository.findAllByIds(distinct(commands, OrderCommand::getMemberId)).stream()
+                .collect(Collectors.toMap(Member::getId, Function.identity()));
+        Map<Long, Item> items = itemRepository.findAllByIds(distinct(commands, OrderCommand::getItemId)).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<OrderOutcome> outcomes = new ArrayList<>(commands.size());
+        for (OrderCommand command : commands) {
+            Member member = members.get(command.getMemberId());
+            Item item = items.get(command.getItemId());
+            if (member == null || item == null) {
+                outcomes.add(OrderOutcome.failure(new IllegalArgumentException("존재하지 않는 회원 또는 상품입니다. memberId=" + command.getMemberId() + ", itemId=" + command.getItemId())));
+                continue;
+            }
+
+            try {
+                Order order = createOrder(member, item, command.getCount());
+                orderRepository.save(order);
+                eventPublisher.publishEvent(new OrderCreatedEvent(order));
+                outcomes.add(OrderOutcome.success(order.getId()));
+            } catch (NotEnoughStockException e) {
+                outcomes.add(OrderOutcome.failure(e));
+            }
+        }
+        return outcomes;
+    }
+
     /**
      * 주문 취소
      * @param orderId
@@ -60,13 +141,61 @@ public class OrderService {
         // 엔티티 조회
         Order order = orderRepository.findOne(orderId);
         // 주문 취소
-        order.cancel();
+        if (stockReservationService.isEnabled()) {
+            order.cancelWithoutRestock();
+            order.getOrderItems().forEach(oi -> stockReservationService.release(oi.getItem(), oi.getCount()));
+        } else {
+            order.cancel();
+        }
+        eventPublisher.publishEvent(new OrderCancelledEvent(order));
         // 로직이 간단한 이유 -> jpa의 가장 큰 장점인데, entity의 값이 변경되면 jpa가 더티 체킹으로 변경 내역을 감지하여 db에 update query를 알아서 날려준다.
         // 그렇기 때문에 엔티티의 값을 변경하고나서 다시 그 값을 꺼내와서 직접 sql을 짜서 update를 시켜줄 필요가 없어진다.
     }
 
+    private Order createOrder(Member member, Item item, int count) {
+        // 배송정보 생성
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+
+        // 주문 상품 생성
+        OrderItem orderItem = createOrderItem(item, count);
+
+        // 주문 생성
+        return Order.createOrder(member, delivery, orderItem);
+    }
+
+    private static Set<Long> distinct(List<OrderCommand> commands, Function<OrderCommand, Long> idMapper) {
+        return commands.stream()
+                .map(idMapper)
+                .collect(Collectors.toSet());
+    }
+
+    private OrderItem createOrderItem(Item item, int count) {
+        if (stockReservationService.isEnabled()) {
+            stockReservationService.reserve(item, count); // item row를 건드리지 않고 메모리 카운터에서 선점
+            return OrderItem.createReservedOrderItem(item, item.getPrice(), count);
+        }
+        return OrderItem.createOrderItem(item, item.getPrice(), count);
+    }
+
     // 검색
     public List<Order> findOrders(OrderSearch orderSearch) {
         return orderRepository.findAllByString(orderSearch);
     }
+
+    /**
+     * 주문 목록 화면용 검색 -> order_summary 한 테이블만, 최신 주문부터 (조인, 지연 로딩 없음)
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderSummary> findOrderList(OrderSearch orderSearch, Long lastOrderId, int limit) {
+        return orderSummaryRepository.findLatest(orderSearch, lastOrderId, limit);
+    }
+
+    /**
+     * 주문 요약(order_summary) 검색 -> 목록 화면/API용, 테이블 하나만 조회
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public List<OrderSummary> findOrderSummaries(OrderSearch orderSearch, Long lastOrderId, int limit) {
+        return orderSummaryRepository.findAll(orderSearch, lastOrderId, limit);
+    }
 }
@@ -0,0 +1,34 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderCancelledEvent;
+import jpabook.jpashop.domain.OrderCreatedEvent;
+import jpabook.jpashop.domain.OrderSummary;
+import jpabook.jpashop.repository.OrderSummaryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 주문 이벤트로 order_summary를 갱신한다.
+ * 동기 리스너라서 주문을 저장/취소한 트랜잭션에 같이 묶인다. -> 주문이 롤백되면 요약도 롤백
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderSummaryUpdater {
+    private final OrderSummaryRepository orderSummaryRepository;
+
+    @EventListener
+    public void on(OrderCreatedEvent event) {
+        orderSummaryRepository.save(OrderSummary.from(event.getOrder()));
+    }
+
+    @EventListener
+    public void on(OrderCancelledEvent event) {
+        OrderSummary summary = orderSummaryRepository.findOne(event.getOrder().getId());
+        if (summary == null) { // 요약이 없던 주문(이벤트 없이 직접 저장된 주문)이면 지금 만든다.
+            orderSummaryRepository.save(OrderSummary.from(event.getOrder()));
+            return;
+        }
+        summary.cancel();
+    }
+}
@@ -0,0 +1,48 @@
+package jpabook.jpashop.service;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * 비동기 주문 접수증 -> 접수 시 바로 발급하고, 워커가 처리하면 결과(orderId 또는 실패 사유)를 채운다.
+ * 워커 스레드가 쓰고 요청 스레드가 읽기 때문에 결과 필드는 volatile
+ */
+@Getter
+public class OrderTicket {
+    public enum Status {
+        PENDING, COMPLETED, FAILED
+    }
+
+    private final String id = UUID.randomUUID().toString();
+    private final OrderCommand command;
+    private final LocalDateTime acceptedAt = LocalDateTime.now();
+    private volatile Status status = Status.PENDING;
+    private volatile Long orderId;
+    private volatile String failureMessage;
+    private volatile long completedAtMillis;
+
+    public OrderTicket(OrderCommand command) {
+        this.command = command;
+    }
+
+    void complete(Long orderId) {
+        this.orderId = orderId;
+        finish(Status.COMPLETED);
+    }
+
+    void fail(String failureMessage) {
+        this.failureMessage = failureMessage;
+        finish(Status.FAILED);
+    }
+
+    boolean isDone() {
+        return status != Status.PENDING;
+    }
+
+    private void finish(Status status) {
+        this.completedAtMillis = System.currentTimeMillis();
+        this.status = status; // volatile write를 마지막에 -> status를 본 스레드는 결과 필드도 본다.
+    }
+}
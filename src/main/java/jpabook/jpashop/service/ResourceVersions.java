@@ -0,0 +1,76 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.OrderCancelledEvent;
+import jpabook.jpashop.domain.OrderCreatedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 리소스(주문, 회원, 상품)별 변경 카운터 -> 조회 API의 ETag(버전 토큰)로 사용한다. DB를 조회하지 않는다.
+ * - 쓰기 트랜잭션이 커밋된 뒤에 올린다. 조회 쪽은 쿼리 전에 버전을 먼저 읽으므로, 이전 버전 값으로 최신 데이터가 저장될 수는 있어도
+ *   새 버전 값으로 이전 데이터가 저장되지는 않는다.
+ * - 카운터는 메모리에만 있어서 인스턴스(재시작)마다 nonce를 붙인다. -> 다른 인스턴스가 만든 ETag는 항상 불일치(200)로 처리된다.
+ * - 다른 인스턴스의 쓰기는 이 카운터를 올리지 않는다. -> 한 대로만 운영할 때만 사용한다. (jpashop.response-cache.single-instance)
+ * - replica로 조회하면 복제 지연 동안 이전 데이터가 새 버전으로 저장될 수 있다. (다음 쓰기까지 유지)
+ */
+@Component
+public class ResourceVersions {
+    public enum Resource {
+        ORDER, MEMBER, ITEM
+    }
+
+    private final String nonce = UUID.randomUUID().toString().substring(0, 8);
+    private final Map<Resource, AtomicLong> versions = new EnumMap<>(Resource.class);
+
+    public ResourceVersions() {
+        for (Resource resource : Resource.values()) {
+            versions.put(resource, new AtomicLong());
+        }
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 올린다. (트랜잭션 밖이면 바로)
+     */
+    public void bumpAfterCommit(Resource resource) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            versions.get(resource).incrementAndGet();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                versions.get(resource).incrementAndGet();
+            }
+        });
+    }
+
+    @EventListener
+    public void on(OrderCreatedEvent event) {
+        bumpAfterCommit(Resource.ORDER);
+    }
+
+    @EventListener
+    public void on(OrderCancelledEvent event) {
+        bumpAfterCommit(Resource.ORDER);
+    }
+
+    /**
+     * 리소스들의 현재 버전을 합친 강한 ETag ex) "1a2b3c4d-12.3"
+     */
+    public String etag(Resource... resources) {
+        StringBuilder sb = new StringBuilder(32).append('"').append(nonce);
+        char separator = '-';
+        for (Resource resource : resources) {
+            sb.append(separator).append(versions.get(resource).get());
+            separator = '.';
+        }
+        return sb.append('"').toString();
+    }
+}
@@ -0,0 +1,196 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 메모리 재고 선점(reservation)
+ * 주문할 때마다 item row를 읽고 쓰는 대신 상품별 카운터를 CAS로 차감하고,
+ * 차감된 수량(delta)은 모아뒀다가 주기적으로 item 테이블에 한 번에 반영한다.
+ * -> 단일 애플리케이션 인스턴스에서만 재고의 기준이 될 수 있다. (인스턴스가 여러 대면 카운터가 서로 다르다)
+ */
+@Slf4j
+@Service
+public class StockReservationService {
+    private final ConcurrentMap<Long, StockCounter> counters = new ConcurrentHashMap<>();
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    public StockReservationService(EntityManager em,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${jpashop.stock.reservation.enabled:false}") boolean enabled) {
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+    }
+
+    /**
+     * 주문 시 재고를 이 서비스로 관리할지 여부 (false면 기존처럼 Item.removeStock으로 처리)
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 재고 선점
+     * 트랜잭션 안에서 호출하면 롤백될 때 선점한 수량을 되돌리고, 커밋될 때만 DB 반영 대상에 올린다.
+     * @throws NotEnoughStockException 남은 재고보다 많이 주문한 경우
+     */
+    public void reserve(Item item, int count) {
+        StockCounter counter = counterOf(item);
+        counter.take(count);
+        onCompletion(committed -> {
+            if (committed) {
+                counter.pending.addAndGet(count);
+            } else {
+                counter.available.addAndGet(count);
+            }
+        });
+    }
+
+    /**
+     * 선점한 재고 반납 (주문 취소) -> 커밋된 경우에만 반납한다.
+     */
+    public void release(Item item, int count) {
+        onCompletion(committed -> {
+            if (committed) {
+                StockCounter counter = counterOf(item);
+                counter.available.addAndGet(count);
+                counter.pending.addAndGet(-count);
+            }
+        });
+    }
+
+    /**
+     * 상품 재고를 직접 수정했을 때 카운터에 바뀐 만큼(newQuantity - oldQuantity)만 더한다.
+     * 카운터를 버리고 새로 만들면 안 된다. -> 이전 카운터에서 선점하고 아직 커밋 전인 주문이 나중에 커밋되면서 버려진 카운터에 delta를 쌓고,
+     * flush가 그 delta를 보지 못해서 DB 재고가 차감되지 않는다. (초과 판매)
+     * 카운터를 유지하면 "남은 재고 = DB 재고 - 반영 전 delta - 커밋 전 선점"이 그대로 유지된다.
+     * - 줄이는 경우: 바로 차감하고 롤백되면 되돌린다. (커밋 직후 잠깐이라도 옛날 재고로 더 팔지 않도록)
+     * - 늘리는 경우: 커밋된 뒤에 더한다.
+     * oldQuantity는 같은 트랜잭션에서 읽은 DB 값이어야 한다. 그 사이 flush가 반영되면 @Version 충돌로 수정이 실패하므로 둘이 어긋나지 않는다.
+     */
+    public void adjust(Long itemId, int oldQuantity, int newQuantity) {
+        int diff = newQuantity - oldQuantity;
+        if (diff == 0) {
+            return;
+        }
+        // 카운터가 아직 없으면 수정 전 DB 값으로 만든다. (동시에 주문이 만들더라도 같은 값)
+        StockCounter counter = counters.computeIfAbsent(itemId, id -> new StockCounter(oldQuantity));
+        if (diff < 0) {
+            counter.available.addAndGet(diff); // 음수가 될 수 있다. -> 다시 채워질 때까지 take가 실패한다.
+            onCompletion(committed -> {
+                if (!committed) {
+                    counter.available.addAndGet(-diff);
+                }
+            });
+        } else {
+            onCompletion(committed -> {
+                if (committed) {
+                    counter.available.addAndGet(diff);
+                }
+            });
+        }
+    }
+
+    /**
+     * @return 메모리 카운터의 남은 재고 (아직 카운터가 없으면 null)
+     */
+    public Integer getAvailable(Long itemId) {
+        StockCounter counter = counters.get(itemId);
+        return counter == null ? null : counter.available.get();
+    }
+
+    /**
+     * 모아둔 delta를 item 테이블에 반영
+     * 상품마다 update 1번 -> 주문 수와 상관없이 주기당 (재고가 변한 상품 수)만큼만 쿼리가 나간다.
+     */
+    @Scheduled(fixedDelayString = "${jpashop.stock.reservation.flush-interval-ms:1000}")
+    @PreDestroy
+    public void flush() {
+        Map<Long, Integer> deltas = new HashMap<>();
+        counters.forEach((itemId, counter) -> {
+            int delta = counter.pending.getAndSet(0);
+            if (delta != 0) {
+                deltas.put(itemId, delta);
+            }
+        });
+        if (deltas.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> deltas.forEach((itemId, delta) ->
+                    em.createQuery("update versioned Item i set i.stockQuantity = i.stockQuantity - :delta where i.id = :itemId") // versioned: 버전도 같이 올려서 엔티티로 수정 중인 트랜잭션이 충돌을 감지하게 한다.
+                            .setParameter("delta", delta)
+                            .setParameter("itemId", itemId)
+                            .executeUpdate()));
+        } catch (RuntimeException e) {
+            // 반영에 실패한 delta는 다음 주기에 다시 시도한다.
+            deltas.forEach((itemId, delta) -> {
+                StockCounter counter = counters.get(itemId);
+                if (counter != null) {
+                    counter.pending.addAndGet(delta);
+                }
+            });
+            log.warn("재고 반영 실패. 다음 주기에 다시 시도합니다. items={}", deltas.keySet(), e);
+        }
+    }
+
+    private StockCounter counterOf(Item item) {
+        return counters.computeIfAbsent(item.getId(), id -> new StockCounter(item.getStockQuantity()));
+    }
+
+    private void onCompletion(Consumer<Boolean> callback) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            callback.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                callback.accept(status == STATUS_COMMITTED);
+            }
+        });
+    }
+
+    static class StockCounter {
+        private final AtomicInteger available; // 주문 가능한 재고
+        private final AtomicInteger pending = new AtomicInteger(); // DB에 아직 반영하지 않은 차감 수량
+
+        StockCounter(int stockQuantity) {
+            this.available = new AtomicInteger(stockQuantity);
+        }
+
+        void take(int count) {
+            while (true) { // 락 없이 CAS로 차감 -> 실패하면 최신 값으로 다시 시도
+                int current = available.get();
+                int rest = current - count;
+                if (rest < 0) {
+                    throw new NotEnoughStockException("need more stock");
+                }
+                if (available.compareAndSet(current, rest)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 엔티티를 조회해서 화면/API용 dto로 바꾸는 읽기 전용 서비스 (OSIV off)
+ * 영속성 컨텍스트는 트랜잭션이 끝나면 닫힌다. -> 지연 로딩은 dto를 만드는 mapper 안, 즉 트랜잭션 안에서만 일어나야 한다.
+ * 컨트롤러는 완성된 dto만 받고, 응답 직렬화/화면 렌더링 동안에는 DB 커넥션을 잡고 있지 않는다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderQueryService {
+    private final OrderRepository orderRepository;
+
+    /**
+     * 엔티티를 그대로 내보내는 api(v1)용 -> 응답에 필요한 지연 로딩을 트랜잭션 안에서 모두 초기화해서 준다.
+     * @param withItems orderItems.item까지 초기화
+     */
+    public List<Order> findOrdersInitialized(OrderSearch orderSearch, boolean withItems) {
+        List<Order> orders = orderRepository.findAllByString(orderSearch);
+        for (Order order : orders) {
+            order.getMember().getName(); // LAZY 강제 초기화 -> 트랜잭션 밖(OSIV off)에서는 could not initialize proxy
+            order.getDelivery().getAddress();
+            if (withItems) {
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    orderItem.getItem().getName();
+                }
+            }
+        }
+        return orders;
+    }
+
+    /**
+     * 검색 + 지연 로딩(N + 1) -> 비교용
+     */
+    public <T> List<T> findOrders(OrderSearch orderSearch, Function<Order, T> mapper) {
+        return map(orderRepository.findAllByString(orderSearch), mapper);
+    }
+
+    /**
+     * member, delivery, orderItems, item fetch join
+     */
+    public <T> List<T> findAllWithItem(Function<Order, T> mapper) {
+        return map(orderRepository.findAllWithItem(), mapper);
+    }
+
+    /**
+     * member, delivery fetch join (컬렉션은 mapper 안에서 batch fetch)
+     */
+    public <T> List<T> findAllWithMemberDelivery(Function<Order, T> mapper) {
+        return map(orderRepository.findAllWithMemberDelivery(), mapper);
+    }
+
+    /**
+     * findAllWithMemberDelivery의 keyset 페이징 버전
+     * @param lastOrderId 이전 페이지의 마지막 order id (첫 페이지면 null)
+     */
+    public <T> List<T> findAllWithMemberDelivery(Long lastOrderId, int limit, Function<Order, T> mapper) {
+        return map(orderRepository.findAllWithMemberDelivery(lastOrderId, limit), mapper);
+    }
+
+    private static <T> List<T> map(List<Order> orders, Function<Order, T> mapper) {
+        return orders.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,69 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 없는 카테고리, 상품 id -> 500이 아니라 400 (ApiExceptionHandler)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+@Transactional // 만든 카테고리는 롤백
+public class CategoryApiTest {
+    private static final long UNKNOWN_ID = Long.MAX_VALUE;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void 없는_카테고리의_상품_조회는_400() throws Exception {
+        mockMvc.perform(get("/api/v1/categories/{categoryId}/items", UNKNOWN_ID))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("존재하지 않는 카테고리입니다. categoryId=" + UNKNOWN_ID));
+    }
+
+    @Test
+    public void 없는_상위_카테고리로_추가하면_400() throws Exception {
+        mockMvc.perform(post("/api/v1/categories")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "도서", "parentId", UNKNOWN_ID))))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void 카테고리에_없는_상품_추가는_400() throws Exception {
+        // given
+        String created = mockMvc.perform(post("/api/v1/categories")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(Map.of("name", "도서"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long categoryId = objectMapper.readTree(created).get("id").asLong();
+
+        // when, then
+        mockMvc.perform(post("/api/v1/categories/{categoryId}/items/{itemId}", categoryId, UNKNOWN_ID))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("존재하지 않는 상품입니다. itemId=" + UNKNOWN_ID));
+        mockMvc.perform(post("/api/v1/categories/{categoryId}/items/{itemId}", UNKNOWN_ID, UNKNOWN_ID))
+                .andExpect(status().isBadRequest());
+    }
+}
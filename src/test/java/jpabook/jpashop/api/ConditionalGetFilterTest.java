@@ -0,0 +1,110 @@
+package jpabook.jpashop.api;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.service.ResourceVersions;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class ConditionalGetFilterTest { // 컨트롤러 대신 호출 횟수를 세는 servlet으로 확인한다.
+    private final ResourceVersions resourceVersions = new ResourceVersions();
+    private final ConditionalGetFilter filter = new ConditionalGetFilter(resourceVersions, new SimpleMeterRegistry(), 1024 * 1024, true);
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    @Test
+    public void 같은_버전이면_304_또는_캐시() throws Exception {
+        // given
+        MockHttpServletResponse first = get(null);
+        String etag = first.getHeader("ETag");
+
+        // when
+        MockHttpServletResponse notModified = get(etag);
+        MockHttpServletResponse cached = get(null);
+
+        // then
+        assertEquals(200, first.getStatus());
+        assertEquals(304, notModified.getStatus());
+        assertEquals(200, cached.getStatus());
+        assertEquals(first.getContentAsString(), cached.getContentAsString());
+        assertEquals(1, rendered.get()); // 컨트롤러는 처음 한 번만
+    }
+
+    @Test
+    public void 변경되면_다시_조회() throws Exception {
+        // given
+        String etag = get(null).getHeader("ETag");
+
+        // when
+        resourceVersions.bumpAfterCommit(ResourceVersions.Resource.MEMBER); // 트랜잭션 밖이면 바로 올라간다.
+        MockHttpServletResponse response = get(etag);
+
+        // then
+        assertEquals(200, response.getStatus());
+        assertNotEquals(etag, response.getHeader("ETag"));
+        assertEquals(2, rendered.get());
+    }
+
+    @Test
+    public void 여러_대로_운영하면_동작하지_않음() throws Exception {
+        // given
+        ConditionalGetFilter multiInstance = new ConditionalGetFilter(resourceVersions, new SimpleMeterRegistry(), 1024 * 1024, false);
+
+        // when
+        MockHttpServletResponse first = get(multiInstance, null);
+        MockHttpServletResponse second = get(multiInstance, "\"anything\"");
+
+        // then
+        assertNull(first.getHeader("ETag"));
+        assertEquals(200, second.getStatus());
+        assertEquals(2, rendered.get()); // 매번 컨트롤러가 만든다.
+    }
+
+    @Test
+    public void 검색_조건별_ETag() throws Exception {
+        // given: "Aa"와 "BB"는 String.hashCode가 같다.
+        String etag = get(filter, "name=Aa&limit=10", null).getHeader("ETag");
+
+        // when
+        MockHttpServletResponse other = get(filter, "name=BB&limit=10", etag);
+        MockHttpServletResponse reordered = get(filter, "limit=10&name=Aa", etag);
+
+        // then
+        assertEquals(200, other.getStatus());
+        assertNotEquals(etag, other.getHeader("ETag"));
+        assertEquals(304, reordered.getStatus()); // 파라미터 순서만 다르면 같은 조건
+    }
+
+    private MockHttpServletResponse get(String ifNoneMatch) throws Exception {
+        return get(filter, ifNoneMatch);
+    }
+
+    private MockHttpServletResponse get(ConditionalGetFilter filter, String ifNoneMatch) throws Exception {
+        return get(filter, null, ifNoneMatch);
+    }
+
+    private MockHttpServletResponse get(ConditionalGetFilter filter, String query, String ifNoneMatch) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v2/members");
+        request.setQueryString(query);
+        if (ifNoneMatch != null) {
+            request.addHeader("If-None-Match", ifNoneMatch);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain(new HttpServlet() {
+            @Override
+            protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+                resp.setContentType("application/json");
+                resp.getWriter().write("{\"data\":[{\"name\":\"member" + rendered.incrementAndGet() + "\"}]}");
+            }
+        }));
+        return response;
+    }
+}
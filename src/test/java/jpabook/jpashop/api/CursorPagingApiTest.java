@@ -0,0 +1,92 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 주문, 회원 keyset 페이징 api (InitDb의 주문 2건 이상 기준)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class CursorPagingApiTest {
+    private static final List<String> PAGED_URIS = List.of("/api/v3.1/orders", "/api/v5.1/orders", "/api/v7/orders", "/api/v4.1/simple-orders", "/api/v5/simple-orders");
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Test
+    public void 커서로_다음_페이지() throws Exception {
+        for (String uri : PAGED_URIS) {
+            // given
+            JsonNode page1 = getJson(uri + "?limit=1");
+            String cursor = page1.get("nextCursor").asText();
+
+            // when
+            JsonNode page2 = getJson(uri + "?limit=1&cursor=" + cursor);
+
+            // then
+            assertEquals(uri, 1, page1.get("data").size());
+            assertEquals(uri, 1, page2.get("data").size());
+            assertEquals(uri, Long.valueOf(page1.get("data").get(0).get("orderId").asLong()), IdCursor.decode(cursor)); // 커서 = 마지막 order id
+            assertTrue(uri, page2.get("data").get(0).get("orderId").asLong() > page1.get("data").get(0).get("orderId").asLong());
+        }
+    }
+
+    @Test
+    public void 마지막_페이지는_커서_없음() throws Exception {
+        // when
+        JsonNode after = getJson("/api/v3.1/orders?limit=10&cursor=" + IdCursor.encode(Long.MAX_VALUE - 1)); // 이후 주문 없음
+
+        // then
+        assertEquals(0, after.get("data").size());
+        assertTrue(after.get("nextCursor").isNull());
+    }
+
+    @Test
+    public void 잘못된_커서_limit은_400() throws Exception {
+        for (String uri : PAGED_URIS) {
+            mockMvc.perform(get(uri).param("cursor", "not-a-cursor!")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("cursor", IdCursor.encode(1L).substring(1))).andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("limit", "0")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("limit", "-1")).andExpect(status().isBadRequest());
+            mockMvc.perform(get(uri).param("limit", "1001")).andExpect(status().isBadRequest());
+        }
+    }
+
+    @Test
+    public void 회원목록_기본_100건_잘못된_요청은_400() throws Exception {
+        // given: 생략하면 limit=100
+        JsonNode page = getJson("/api/v2/members?fields=id,name");
+        assertTrue(page.get("data").size() <= 100);
+
+        // when, then
+        mockMvc.perform(get("/api/v2/members").param("fields", "name,password")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v2/members").param("limit", "0")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v2/members").param("limit", "1001")).andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/v2/members").param("cursor", "not-a-cursor!")).andExpect(status().isBadRequest());
+    }
+
+    private JsonNode getJson(String uri) throws Exception {
+        String body = mockMvc.perform(get(uri))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return objectMapper.readTree(body);
+    }
+}
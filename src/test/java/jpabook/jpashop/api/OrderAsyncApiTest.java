@@ -0,0 +1,153 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderCommand;
+import jpabook.jpashop.service.OrderIntakeService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 비동기 주문 접수 api -> 접수(202) 후 Location으로 결과 조회, 대기열이 가득 차면 429
+ * 워커가 커밋한 뒤에 결과를 채우므로 @Transactional을 걸지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@AutoConfigureMockMvc
+public class OrderAsyncApiTest {
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    ItemService itemService;
+
+
+    @Test
+    public void 접수증으로_완료까지_조회() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+
+        // when
+        MvcResult accepted = mockMvc.perform(post("/api/v1/orders/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson(memberId, itemId, 3)))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String location = accepted.getResponse().getHeader("Location");
+
+        // then: PENDING -> COMPLETED
+        JsonNode acceptedTicket = objectMapper.readTree(accepted.getResponse().getContentAsString());
+        assertEquals("/api/v1/orders/async/" + acceptedTicket.get("ticketId").asText(), location);
+        JsonNode ticket = poll(location);
+        assertEquals("COMPLETED", ticket.get("status").asText());
+        assertTrue(ticket.get("orderId").asLong() > 0);
+        assertEquals(7, itemService.findOne(itemId).getStockQuantity());
+    }
+
+    @Test
+    public void 재고_부족이면_실패로_완료() throws Exception {
+        // given
+        Long memberId = createMember();
+        Long itemId = createBook(1);
+
+        // when
+        String location = mockMvc.perform(post("/api/v1/orders/async")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(orderJson(memberId, itemId, 5)))
+                .andExpect(status().isAccepted())
+                .andReturn().getResponse().getHeader("Location");
+
+        // then
+        JsonNode ticket = poll(location);
+        assertEquals("FAILED", ticket.get("status").asText());
+        assertEquals("need more stock", ticket.get("failureMessage").asText());
+    }
+
+    @Test
+    public void 대기열이_가득_차면_429() throws Exception {
+        // given: 워커를 시작하지 않은 용량 1짜리 대기열을 채워둔다. (실행 중인 워커는 계속 꺼내 가기 때문에 따로 만든다.)
+        OrderIntakeService fullIntake = new OrderIntakeService(null, null, new SimpleMeterRegistry(), 1, 1, 100, 600000);
+        fullIntake.submit(new OrderCommand(1L, 1L, 1));
+        OrderApiController controller = new OrderApiController(null, null, null, null, null, fullIntake);
+        OrderApiController.OrderLineRequest request = new OrderApiController.OrderLineRequest();
+        request.setMemberId(1L);
+        request.setItemId(1L);
+        request.setCount(1);
+
+        // when
+        ResponseEntity<OrderApiController.OrderTicketResponse> response = controller.orderAsync(request);
+
+        // then
+        assertEquals(HttpStatus.TOO_MANY_REQUESTS, response.getStatusCode());
+        assertEquals("1", response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+        assertNull(response.getBody());
+    }
+
+    @Test
+    public void 없는_접수증은_404() throws Exception {
+        mockMvc.perform(get("/api/v1/orders/async/" + UUID.randomUUID()))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode poll(String location) throws Exception {
+        JsonNode ticket;
+        long deadline = System.currentTimeMillis() + 10_000;
+        do {
+            Thread.sleep(50);
+            ticket = objectMapper.readTree(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        } while ("PENDING".equals(ticket.get("status").asText()) && System.currentTimeMillis() < deadline);
+        return ticket;
+    }
+
+    private static String orderJson(Long memberId, Long itemId, int count) {
+        return "{\"memberId\":" + memberId + ",\"itemId\":" + itemId + ",\"count\":" + count + "}";
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("비동기 회원 " + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("비동기 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+}
@@ -0,0 +1,134 @@
+package jpabook.jpashop.config;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest { // DB 없이 트랜잭션 상태와 요청만 흉내 내서 라우팅 키를 확인한다.
+    private final DataSource replica = mock(DataSource.class);
+    private final ReplicaHealthChecker healthChecker = new ReplicaHealthChecker(replica);
+    private final ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(healthChecker, new ReadYourWritesWindow(3000));
+
+    @After
+    public void tearDown() {
+        TransactionSynchronizationManager.clear();
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void readOnly_트랜잭션만_replica() throws Exception {
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey()); // 트랜잭션 없음
+
+        beginTransaction(true);
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+        TransactionSynchronizationManager.clear();
+
+        beginTransaction(false);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void 쓰기_커밋_후에는_조회도_primary() throws Exception {
+        // given: 같은 요청에서 쓰기 트랜잭션 커밋
+        MockHttpServletResponse response = bindRequest(new MockHttpServletRequest());
+        beginTransaction(false);
+        routing.determineCurrentLookupKey();
+        commit();
+
+        // when, then: 같은 요청 안의 조회
+        beginTransaction(true);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        TransactionSynchronizationManager.clear();
+
+        // when, then: 쿠키를 들고 온 다음 요청
+        Cookie cookie = response.getCookie(ReadYourWritesWindow.COOKIE_NAME);
+        assertNotNull(cookie);
+        MockHttpServletRequest next = new MockHttpServletRequest();
+        next.setCookies(cookie);
+        bindRequest(next);
+        beginTransaction(true);
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+        TransactionSynchronizationManager.clear();
+
+        // when, then: window가 지난 쿠키
+        MockHttpServletRequest expired = new MockHttpServletRequest();
+        expired.setCookies(new Cookie(ReadYourWritesWindow.COOKIE_NAME, String.valueOf(System.currentTimeMillis() - 1)));
+        bindRequest(expired);
+        beginTransaction(true);
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void 롤백되면_window를_시작하지_않음() throws Exception {
+        // given
+        MockHttpServletResponse response = bindRequest(new MockHttpServletRequest());
+        beginTransaction(false);
+        routing.determineCurrentLookupKey();
+
+        // when
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        TransactionSynchronizationManager.clear();
+
+        // then
+        assertNull(response.getCookie(ReadYourWritesWindow.COOKIE_NAME));
+        beginTransaction(true);
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    @Test
+    public void replica가_죽으면_primary로() throws Exception {
+        // given
+        when(replica.getConnection()).thenThrow(new SQLException("connection refused"));
+        healthChecker.check();
+        beginTransaction(true);
+
+        // when, then
+        assertFalse(healthChecker.isHealthy());
+        assertEquals(ReplicaRoutingDataSource.PRIMARY, routing.determineCurrentLookupKey());
+
+        // replica가 돌아오면 다시 replica로
+        Connection connection = mock(Connection.class);
+        when(connection.isValid(anyInt())).thenReturn(true);
+        doReturn(connection).when(replica).getConnection(); // 위에서 예외를 던지도록 stub 했으므로 doReturn
+        healthChecker.check();
+        assertTrue(healthChecker.isHealthy());
+        assertEquals(ReplicaRoutingDataSource.REPLICA, routing.determineCurrentLookupKey());
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+
+    private static void commit() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCommit();
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+        }
+        TransactionSynchronizationManager.clear();
+    }
+
+    private static MockHttpServletResponse bindRequest(MockHttpServletRequest request) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request, response));
+        return response;
+    }
+}
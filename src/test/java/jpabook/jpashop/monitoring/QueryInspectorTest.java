@@ -0,0 +1,126 @@
+package jpabook.jpashop.monitoring;
+
+import jpabook.jpashop.repository.ChunkedInLoader;
+import jpabook.jpashop.repository.order.query.OrderDetailQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 조회 최적화가 깨지지 않도록 endpoint별 쿼리 수를 고정해둔다. (InitDb의 주문 2건 기준)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.query-inspector.response-headers=true")
+@AutoConfigureMockMvc
+public class QueryInspectorTest {
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+
+    @Autowired
+    OrderDetailQueryRepository orderDetailQueryRepository;
+
+    @Test
+    public void 컬렉션_in_조회는_쿼리_2번() throws Exception {
+        // when
+        QueryStats stats = QueryInspector.inspect(() -> orderQueryRepository.findAllByDto_optimization());
+
+        // then
+        assertEquals(2, stats.getStatementCount()); // 루트 1번, 컬렉션 1번
+        assertTrue(stats.getSuspectedNPlusOne(2).isEmpty());
+    }
+
+    @Test
+    public void v5는_쿼리_2번_이하() throws Exception {
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v5/orders"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // then
+        int queryCount = Integer.parseInt(result.getResponse().getHeader("X-Query-Count"));
+        assertTrue("쿼리 수: " + queryCount, queryCount <= 2);
+        assertEquals("0", result.getResponse().getHeader("X-Query-N-Plus-One"));
+    }
+
+    @Test
+    public void v4는_N_plus_1_감지() throws Exception {
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v4/orders"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // then
+        assertEquals("1", result.getResponse().getHeader("X-Query-N-Plus-One")); // 주문마다 orderItems를 조회하는 쿼리 1종류
+    }
+
+    @Test
+    public void OSIV_off_지연로딩_api와_화면() throws Exception {
+        // 지연 로딩이 트랜잭션 밖(직렬화, 렌더링)에서 일어나면 LazyInitializationException -> 500
+        for (String uri : List.of("/api/v1/orders", "/api/v2/orders", "/api/v3.1/orders", "/api/v1/simple-orders", "/api/v2/simple-orders", "/orders")) {
+            MvcResult result = mockMvc.perform(get(uri))
+                    .andExpect(status().isOk())
+                    .andReturn();
+
+            assertNotNull(uri, result.getResponse().getHeader("X-Connection-Hold-Ms")); // 커넥션 점유 시간
+        }
+    }
+
+    @Test
+    public void 병렬_조회_작업_스레드도_집계() throws Exception {
+        // when: 루트 1번 후 자식 쿼리 3개는 호출 스레드와 러너 스레드가 나눠서 실행
+        QueryStats stats = QueryInspector.inspect(() -> orderDetailQueryRepository.findOrderDetails(null, 100));
+
+        // then
+        assertEquals(4, stats.getStatementCount());
+        assertTrue(stats.getSuspectedNPlusOne(2).isEmpty());
+    }
+
+    @Test
+    public void 덩어리_조회_작업_스레드도_집계() throws Exception {
+        // given: 100개 -> 16개씩 7덩어리, 첫 덩어리만 호출 스레드
+        ChunkedInLoader loader = new ChunkedInLoader(mock(PlatformTransactionManager.class), 16, 3);
+        List<Long> ids = LongStream.rangeClosed(1, 100).boxed().collect(Collectors.toList());
+
+        // when
+        QueryStats stats = QueryInspector.inspect(() -> loader.load(ids, chunk -> {
+            QueryInspector.current().addStatement("select * from orders where order_id in (?)", 1);
+            return chunk;
+        }));
+        loader.shutdown();
+
+        // then
+        assertEquals(7, stats.getStatementCount());
+        assertTrue(stats.getSuspectedNPlusOne(2).isEmpty()); // 덩어리마다 같은 sql은 의도한 것 -> N + 1 의심에서 제외
+    }
+
+    @Test
+    public void streaming_응답은_버퍼링하지_않음() throws Exception {
+        // when
+        MvcResult result = mockMvc.perform(get("/api/v6/orders/export"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        // then
+        assertTrue(result.getResponse().getContentAsString().startsWith("["));
+        assertNull(result.getResponse().getHeader("X-Query-Count")); // 이미 body를 쓴 뒤라 헤더는 붙이지 않는다.
+    }
+}
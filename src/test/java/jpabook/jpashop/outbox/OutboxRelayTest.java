@@ -0,0 +1,101 @@
+package jpabook.jpashop.outbox;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.outbox.sink=memory")
+public class OutboxRelayTest { // 커밋 후에 발행되므로 @Transactional을 걸지 않는다.
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    InMemoryOutboxSink outboxSink;
+
+    @Autowired
+    OutboxRepository outboxRepository;
+
+    @Autowired
+    OutboxRelay outboxRelay;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 주문생성_취소_이벤트_순서대로_발행() throws Exception {
+        // given
+        Member member = new Member();
+        member.setName("아웃박스 회원");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        memberService.join(member);
+
+        Book book = new Book();
+        book.setName("아웃박스 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        // when
+        Long orderId = orderService.order(member.getId(), book.getId(), 2);
+        orderService.cancelOrder(orderId);
+
+        // then
+        List<String> eventTypes = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (eventTypes.size() < 2 && System.currentTimeMillis() < deadline) {
+            OutboxEvent event = outboxSink.poll(100, TimeUnit.MILLISECONDS);
+            if (event != null && orderId.equals(event.getAggregateId())) {
+                eventTypes.add(event.getEventType());
+                assertTrue(event.getPayload().contains("\"orderId\":" + orderId));
+            }
+        }
+        assertEquals(List.of("OrderCreated", "OrderCancelled"), eventTypes); // 같은 주문의 이벤트는 저장된 순서대로 발행되어야 한다.
+    }
+
+    @Test
+    public void id가_뒤바뀌어도_주문별_version_순서대로_발행() throws Exception {
+        // given: 다른 인스턴스가 미리 받아둔 작은 id로 나중 이벤트(version 1)가 먼저 저장된 상황
+        Long aggregateId = -1L; // 실제 주문과 겹치지 않는 id
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            outboxRepository.save(OutboxEvent.create("Order", aggregateId, 1L, "OrderCancelled", "{}"));
+            outboxRepository.save(OutboxEvent.create("Order", aggregateId, 0L, "OrderCreated", "{}"));
+        });
+
+        // when
+        outboxRelay.wakeUp();
+
+        // then
+        List<String> eventTypes = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (eventTypes.size() < 2 && System.currentTimeMillis() < deadline) {
+            OutboxEvent event = outboxSink.poll(100, TimeUnit.MILLISECONDS);
+            if (event != null && aggregateId.equals(event.getAggregateId())) {
+                eventTypes.add(event.getEventType());
+            }
+        }
+        assertEquals(List.of("OrderCreated", "OrderCancelled"), eventTypes);
+    }
+}
@@ -0,0 +1,93 @@
+package jpabook.jpashop.repository;
+
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class ChunkedInLoaderTest { // DB 없이 나누기/합치기만 확인한다.
+
+    @Test
+    public void 거듭제곱_길이로_나누기() throws Exception {
+        // given
+        ChunkedInLoader loader = new ChunkedInLoader(mock(PlatformTransactionManager.class), 64, 1);
+        List<Long> ids = ids(1, 150);
+        ids.add(3L); // 중복은 제외된다.
+
+        // when
+        List<List<Long>> chunks = loader.chunk(ids);
+
+        // then
+        assertEquals(List.of(64, 64, 32), chunks.stream().map(List::size).collect(Collectors.toList()));
+        assertEquals(Long.valueOf(150), chunks.get(2).get(31)); // 150 - 128 = 22개 + 마지막 id 반복
+        assertEquals(150, chunks.stream().flatMap(List::stream).distinct().count());
+    }
+
+    @Test
+    public void 병렬_조회_결과_합치기() throws Exception {
+        // given
+        ChunkedInLoader loader = new ChunkedInLoader(mock(PlatformTransactionManager.class), 16, 3);
+        List<Long> ids = ids(1, 100);
+
+        // when: id마다 row 2개 (key = id)
+        Map<Long, List<Long>> result = loader.loadGrouped(ids,
+                chunk -> chunk.stream().distinct().flatMap(id -> List.of(id, id).stream()).collect(Collectors.toList()),
+                row -> row);
+        loader.shutdown();
+
+        // then
+        assertEquals(100, result.size());
+        assertTrue(result.values().stream().allMatch(rows -> rows.size() == 2));
+    }
+
+    @Test(timeout = 5000)
+    public void 풀이_가득_차도_교착되지_않음() throws Exception {
+        // given: 풀 스레드 2개가 모두 바깥 조회를 실행하면서 안쪽에서 다시 load를 호출
+        ChunkedInLoader loader = new ChunkedInLoader(mock(PlatformTransactionManager.class), 16, 2);
+        List<Long> ids = ids(1, 64);
+
+        // when: 안쪽 덩어리는 풀에 남은 스레드가 없어도 호출한 스레드가 직접 실행한다.
+        List<List<Long>> result = loader.load(ids, chunk -> loader.load(ids, inner -> inner).stream()
+                .flatMap(List::stream)
+                .distinct()
+                .collect(Collectors.toList()));
+        loader.shutdown();
+
+        // then
+        assertEquals(4, result.size());
+        assertTrue(result.stream().allMatch(rows -> rows.size() == 64));
+    }
+
+    @Test
+    public void 한_덩어리가_실패하면_예외() throws Exception {
+        // given
+        ChunkedInLoader loader = new ChunkedInLoader(mock(PlatformTransactionManager.class), 16, 3);
+
+        // when
+        try {
+            loader.load(ids(1, 100), chunk -> {
+                if (chunk.contains(50L)) {
+                    throw new IllegalStateException("조회 실패");
+                }
+                return chunk;
+            });
+            fail("예외가 발생해야 한다.");
+        } catch (IllegalStateException e) {
+            // then
+            assertEquals("조회 실패", e.getMessage());
+        } finally {
+            loader.shutdown();
+        }
+    }
+
+    private static List<Long> ids(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().collect(Collectors.toCollection(ArrayList::new));
+    }
+}
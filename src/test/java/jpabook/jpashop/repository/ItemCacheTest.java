@@ -0,0 +1,154 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.OrderService;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+
+/**
+ * 상품 2차 캐시(item region), 쿼리 캐시, 주문 경로의 캐시 우회 확인
+ * 트랜잭션(영속성 컨텍스트)마다 따로 조회해야 2차 캐시를 거치므로 @Transactional을 걸지 않는다.
+ * 통계는 region 단위로 본다. (relay 등 백그라운드 작업의 sql이 전체 sql 수에 섞이기 때문)
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@ActiveProfiles("l2cache")
+public class ItemCacheTest {
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    ItemRepository itemRepository;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    SessionFactory sessionFactory;
+    Statistics statistics;
+
+    @Before
+    public void setUp() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        statistics = sessionFactory.getStatistics();
+    }
+
+    @Test
+    public void 두번째_조회는_캐시_hit() throws Exception {
+        // given
+        Long itemId = createBook(10);
+        sessionFactory.getCache().evictEntityData(Item.class);
+        statistics.clear();
+
+        // when
+        itemService.findOne(itemId);
+        itemService.findOne(itemId);
+
+        // then
+        CacheRegionStatistics item = statistics.getDomainDataRegionStatistics("item");
+        assertEquals(1, item.getMissCount());
+        assertEquals(1, item.getPutCount());
+        assertEquals(1, item.getHitCount());
+    }
+
+    @Test
+    public void 캐시_우회_조회는_항상_DB() throws Exception {
+        // given: 캐시에 들어 있는 상태
+        Long itemId = createBook(10);
+        itemService.findOne(itemId);
+        statistics.clear();
+
+        // when
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> itemRepository.findOneBypassCache(itemId));
+
+        // then
+        CacheRegionStatistics item = statistics.getDomainDataRegionStatistics("item");
+        assertEquals(0, item.getHitCount());
+        assertEquals(0, item.getMissCount()); // 캐시를 아예 보지 않는다.
+    }
+
+    @Test
+    public void 상품목록_쿼리_캐시() throws Exception {
+        // given
+        createBook(10);
+        itemService.findItems();
+        statistics.clear();
+
+        // when
+        itemService.findItems();
+
+        // then
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertEquals(0, statistics.getQueryCacheMissCount());
+        assertTrue(statistics.getDomainDataRegionStatistics("item").getHitCount() > 0); // 쿼리 캐시에는 id만 있고 엔티티는 item region에서
+    }
+
+    @Test
+    public void 주문은_다른_곳에서_바뀐_재고를_읽음() throws Exception {
+        // given: 캐시에는 재고 10, DB는 다른 인스턴스가 3으로 바꾼 상황 (이 인스턴스의 캐시는 모른다.)
+        Long memberId = createMember();
+        Long itemId = createBook(10);
+        itemService.findOne(itemId);
+        jdbcTemplate.update("update item set stock_quantity = 3, version = version + 1 where item_id = ?", itemId);
+        assertEquals(10, itemService.findOne(itemId).getStockQuantity()); // 캐시는 이전 값
+
+        // when, then: 주문은 DB의 재고(3)로 검사한다.
+        try {
+            orderService.order(memberId, itemId, 5);
+            fail("재고 부족 예외가 발생해야 한다.");
+        } catch (NotEnoughStockException e) {
+            // 캐시의 재고(10)로 검사했다면 주문이 성공했을 것
+        }
+        orderService.order(memberId, itemId, 2);
+        assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject("select stock_quantity from item where item_id = ?", Integer.class, itemId));
+    }
+
+    private Long createBook(int stockQuantity) {
+        Book book = new Book();
+        book.setName("캐시 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("캐시 회원 " + UUID.randomUUID());
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        return memberService.join(member);
+    }
+}
@@ -0,0 +1,84 @@
+package jpabook.jpashop.repository;
+
+import org.junit.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.mock;
+
+public class ParallelQueryExecutorTest { // DB 없이 동시 실행/상한만 확인한다.
+
+    @Test
+    public void 쿼리_동시_실행() throws Exception {
+        // given: 쿼리 3개가 모두 동시에 실행 중이어야 통과하는 latch
+        ParallelQueryExecutor executor = new ParallelQueryExecutor(mock(PlatformTransactionManager.class), 4, 2);
+        CountDownLatch allRunning = new CountDownLatch(3);
+
+        // when
+        ParallelQueryExecutor.Fork fork = executor.fork();
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            String name = "query" + i;
+            results.add(fork.submit(() -> {
+                allRunning.countDown();
+                try {
+                    assertTrue(allRunning.await(5, TimeUnit.SECONDS));
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return name;
+            }));
+        }
+        fork.join();
+        executor.shutdown();
+
+        // then: 호출 스레드 1 + 러너 2
+        assertEquals("query0", ParallelQueryExecutor.resultOf(results.get(0)));
+        assertEquals("query2", ParallelQueryExecutor.resultOf(results.get(2)));
+    }
+
+    @Test
+    public void 요청당_커넥션_상한() throws Exception {
+        // given
+        ParallelQueryExecutor executor = new ParallelQueryExecutor(mock(PlatformTransactionManager.class), 8, 1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+
+        // when
+        ParallelQueryExecutor.Fork fork = executor.fork();
+        for (int i = 0; i < 6; i++) {
+            fork.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return running.decrementAndGet();
+            });
+        }
+        fork.join();
+        executor.shutdown();
+
+        // then: 호출 스레드 1 + 러너 1 -> 최대 2개만 동시에
+        assertTrue(maxRunning.get() <= 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 실패한_쿼리_예외_전달() throws Exception {
+        ParallelQueryExecutor executor = new ParallelQueryExecutor(mock(PlatformTransactionManager.class), 2, 1);
+        ParallelQueryExecutor.Fork fork = executor.fork();
+        fork.submit(() -> "ok");
+        fork.submit(() -> {
+            throw new IllegalArgumentException("fail");
+        });
+        fork.join();
+    }
+}
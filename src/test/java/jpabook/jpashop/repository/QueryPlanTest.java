@@ -0,0 +1,194 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.monitoring.QueryInspector;
+import jpabook.jpashop.monitoring.QueryStats;
+import jpabook.jpashop.repository.member.query.MemberQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderDetailQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simpleQuery.OrderSimpleQueryRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * 검색/페이징 쿼리의 실행 계획 회귀 테스트
+ * 리파지토리 쿼리를 실행하면서 나간 sql을 모아 H2 explain을 돌리고, 큰 테이블(orders, order_item, member)을 full scan 하면 실패한다.
+ * 대상에서 뺀 쿼리
+ * - 전체를 읽는 것이 목적인 쿼리: findAll, findAllWithItem, findOrderQueryDtos, findAllByDto_flat, streamAllByDto_flat, streamNames 등
+ * - findAllByCriteria: '%이름%' 포함 검색이라 원래 full scan
+ * - offset 페이징(findAllWithMemberDelivery(offset, limit)): offset만큼 읽고 버리는 것이 알려진 한계 -> keyset 버전만 검사
+ * - order_summary, item, category 조회: 이 테스트가 데이터를 넣지 않는 작은 테이블
+ * 회원 2000명, 주문 5000건을 커밋하므로 끝나면 컨텍스트(메모리 DB)를 버린다. -> 다른 테스트가 이 데이터를 보지 않는다.
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_CLASS)
+public class QueryPlanTest {
+    private static final Pattern FULL_SCAN_ON_LARGE_TABLE = Pattern.compile("PUBLIC\\.(ORDERS|ORDER_ITEM|MEMBER)\\.tableScan");
+    private static final int MEMBER_COUNT = 2000;
+    private static final int ORDER_COUNT = 5000;
+    private static boolean seeded;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    OrderRepository orderRepository;
+
+    @Autowired
+    OrderQueryRepository orderQueryRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    OrderSimpleQueryRepository orderSimpleQueryRepository;
+
+    @Autowired
+    OrderDetailQueryRepository orderDetailQueryRepository;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Before
+    public void setUp() {
+        if (!seeded) { // 테스트 메서드마다 넣지 않도록 한 번만
+            seed();
+            seeded = true;
+        }
+    }
+
+    @Test
+    public void 회원명_검색() throws Exception {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName("member199");
+
+        assertNoFullScan(() -> orderRepository.findAllByString(orderSearch));
+    }
+
+    @Test
+    public void 주문상태_회원명_검색() throws Exception {
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setOrderStatus(OrderStatus.CANCEL);
+        orderSearch.setMemberName("member42");
+
+        assertNoFullScan(() -> orderRepository.findAllByString(orderSearch));
+    }
+
+    @Test
+    public void keyset_페이징() throws Exception {
+        Long lastOrderId = jdbcTemplate.queryForObject("select max(order_id) - 100 from orders", Long.class);
+
+        assertNoFullScan(() -> orderRepository.findAllWithMemberDelivery(lastOrderId, 100)
+                .forEach(o -> o.getOrderItems().size())); // 컬렉션 batch fetch(order_item in 쿼리)까지 확인
+    }
+
+    @Test
+    public void 주문상품_in_조회() throws Exception {
+        Long lastOrderId = jdbcTemplate.queryForObject("select max(order_id) - 100 from orders", Long.class);
+
+        assertNoFullScan(() -> orderQueryRepository.findAllByDto_optimization(lastOrderId, 100));
+    }
+
+    @Test
+    public void 회원_이름_조회() throws Exception {
+        assertNoFullScan(() -> memberRepository.findByName("member42"));
+    }
+
+    @Test
+    public void 주문_dto_keyset_페이징() throws Exception {
+        Long lastOrderId = jdbcTemplate.queryForObject("select max(order_id) - 100 from orders", Long.class);
+
+        assertNoFullScan(() -> orderSimpleQueryRepository.findOrderDtos(lastOrderId, 100));
+    }
+
+    @Test
+    public void 주문상세_병렬_조회() throws Exception {
+        Long lastOrderId = jdbcTemplate.queryForObject("select max(order_id) - 100 from orders", Long.class);
+
+        assertNoFullScan(() -> orderDetailQueryRepository.findOrderDetails(lastOrderId, 100)); // 러너 스레드의 sql도 모인다.
+    }
+
+    @Test
+    public void 회원목록_keyset_페이징() throws Exception {
+        Long lastMemberId = jdbcTemplate.queryForObject("select max(member_id) - 100 from member", Long.class);
+
+        assertNoFullScan(() -> memberQueryRepository.findMembers(List.of("name", "city"), lastMemberId, 100));
+    }
+
+    @Test
+    public void 회원_id_in_조회() throws Exception {
+        List<Long> memberIds = jdbcTemplate.queryForList("select member_id from member order by member_id limit 100", Long.class);
+
+        assertNoFullScan(() -> memberRepository.findAllByIds(memberIds));
+    }
+
+    @Test
+    public void 회원_이름_중복_조회() throws Exception {
+        assertNoFullScan(() -> memberRepository.findExistingNames(List.of("member1", "member42", "없는회원")));
+    }
+
+    private void assertNoFullScan(Runnable query) {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        QueryStats stats = QueryInspector.capture(() -> readOnly.executeWithoutResult(status -> query.run()));
+
+        assertFalse("실행된 sql이 없습니다.", stats.getExecutedSql().isEmpty());
+        for (String sql : stats.getExecutedSql()) {
+            String plan = jdbcTemplate.queryForObject("explain " + sql, String.class);
+            assertFalse("full table scan:\n" + plan, FULL_SCAN_ON_LARGE_TABLE.matcher(plan).find());
+        }
+    }
+
+    private void seed() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.executeWithoutResult(status -> {
+            Book book = new Book();
+            book.setName("실행계획 JPA");
+            book.setPrice(10000);
+            book.setStockQuantity(Integer.MAX_VALUE);
+            em.persist(book);
+
+            Member[] members = new Member[MEMBER_COUNT];
+            for (int i = 0; i < MEMBER_COUNT; i++) {
+                members[i] = new Member();
+                members[i].setName("member" + i);
+                members[i].setAddress(new Address("서울", "강가", String.valueOf(i)));
+                em.persist(members[i]);
+            }
+
+            for (int i = 0; i < ORDER_COUNT; i++) {
+                Member member = members[i % MEMBER_COUNT];
+                Delivery delivery = new Delivery();
+                delivery.setAddress(member.getAddress());
+                Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+                if (i % 10 == 0) {
+                    order.setStatus(OrderStatus.CANCEL);
+                }
+                em.persist(order);
+            }
+        });
+    }
+}
@@ -0,0 +1,55 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+public class FlatOrderAssemblerTest {
+
+    @Test
+    public void 정렬된_row_묶기() throws Exception {
+        // given
+        List<OrderFlatDto> rows = List.of(row(1L, "A"), row(1L, "B"), row(2L, "C"), row(5L, "D"), row(5L, "E"));
+
+        // when
+        List<OrderQueryDto> orders = FlatOrderAssembler.assemble(rows);
+
+        // then
+        assertEquals(List.of(1L, 2L, 5L), orderIds(orders)); // 순서가 유지되어야 한다.
+        assertEquals(List.of("A", "B"), itemNames(orders.get(0)));
+        assertEquals(List.of("D", "E"), itemNames(orders.get(2)));
+    }
+
+    @Test
+    public void 정렬되지_않은_row_묶기() throws Exception {
+        // given
+        List<OrderFlatDto> rows = List.of(row(3L, "A"), row(1L, "B"), row(3L, "C"), row(2L, "D"), row(1L, "E"));
+
+        // when
+        List<OrderQueryDto> orders = FlatOrderAssembler.assemble(rows);
+
+        // then
+        assertEquals(List.of(3L, 1L, 2L), orderIds(orders)); // 처음 나온 순서대로
+        assertEquals(List.of("A", "C"), itemNames(orders.get(0)));
+        assertEquals(List.of("B", "E"), itemNames(orders.get(1)));
+    }
+
+    private static OrderFlatDto row(Long orderId, String itemName) {
+        return new OrderFlatDto(orderId, "member", LocalDateTime.now(), OrderStatus.ORDER,
+                new Address("city", "street", "zip"), itemName, 1000, 1);
+    }
+
+    private static List<Long> orderIds(List<OrderQueryDto> orders) {
+        return orders.stream().map(OrderQueryDto::getOrderId).collect(Collectors.toList());
+    }
+
+    private static List<String> itemNames(OrderQueryDto order) {
+        return order.getOrderItems().stream().map(OrderItemQueryDto::getItemName).collect(Collectors.toList());
+    }
+}
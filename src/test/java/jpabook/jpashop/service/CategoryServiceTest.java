@@ -0,0 +1,137 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Category;
+import jpabook.jpashop.domain.Item;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.CategoryRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class CategoryServiceTest { // 트리 스냅샷은 커밋 후에 다시 만들어지므로 @Transactional을 걸지 않는다.
+    @Autowired
+    CategoryService categoryService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    CategoryTreeCache categoryTreeCache;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 하위카테고리_상품_범위조회() throws Exception {
+        // given
+        Long book = categoryService.addCategory("도서", null);
+        Long it = categoryService.addCategory("IT", book);
+        Long java = categoryService.addCategory("자바", it);
+        Long novel = categoryService.addCategory("소설", book);
+
+        Long jpa = createBook("카테고리 JPA");
+        Long spring = createBook("카테고리 Spring");
+        categoryService.addItem(java, jpa);
+        categoryService.addItem(novel, spring);
+
+        // when
+        CategoryTree tree = categoryService.getTree();
+        List<Long> allBooks = itemIds(categoryService.findItems(book, null, 100));
+        List<Long> itBooks = itemIds(categoryService.findItems(it, null, 100));
+
+        // then
+        assertEquals(List.of("도서", "IT", "자바"), tree.getPath(java).stream().map(CategoryTree.Node::getName).collect(Collectors.toList()));
+        assertTrue(tree.get(book).contains(tree.get(java))); // 하위 여부는 구간 비교로 판단
+        assertFalse(tree.get(it).contains(tree.get(novel)));
+        assertEquals(3, tree.get(book).getDescendantCount());
+        assertEquals(List.of(jpa, spring), allBooks); // 최상위 카테고리는 하위 전체의 상품을 가진다.
+        assertEquals(List.of(jpa), itBooks);
+    }
+
+    @Test
+    public void 동시에_추가해도_번호가_겹치지_않음() throws Exception {
+        // given
+        Long root = categoryService.addCategory("동시 추가", null);
+        int threadCount = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Long>> futures = new ArrayList<>();
+
+        // when: 같은 부모 아래에 동시에 추가 -> 트리 버전 락으로 번호 매기기가 하나씩 실행된다.
+        for (int i = 0; i < threadCount; i++) {
+            String name = "하위" + i;
+            futures.add(executor.submit(() -> {
+                start.await();
+                return categoryService.addCategory(name, root);
+            }));
+        }
+        start.countDown();
+        for (Future<Long> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // then: 모든 구간이 서로 겹치지 않고, 부모 구간 안에 자식이 모두 들어 있다.
+        CategoryTree tree = categoryService.getTree();
+        CategoryTree.Node parent = tree.get(root);
+        assertEquals(threadCount, parent.getDescendantCount());
+        Set<Integer> numbers = new HashSet<>();
+        for (CategoryTree.Node node : tree.getRoots()) {
+            collectNumbers(node, numbers);
+        }
+        assertEquals(tree.size() * 2, numbers.size());
+    }
+
+    @Test
+    public void 다른_인스턴스의_변경도_반영() throws Exception {
+        // given: 다른 인스턴스가 카테고리를 추가하고 트리 버전을 올린 상황 (이 인스턴스의 커밋 후 rebuild는 없음)
+        Long categoryId = new TransactionTemplate(transactionManager).execute(status -> {
+            categoryRepository.lockTreeVersion().increase();
+            Category category = new Category();
+            category.setName("다른 인스턴스");
+            category.renumber(Integer.MAX_VALUE - 1, Integer.MAX_VALUE, 0);
+            categoryRepository.save(category);
+            return category.getId();
+        });
+
+        // when
+        categoryTreeCache.refreshIfChanged();
+
+        // then
+        assertNotNull(categoryService.getTree().get(categoryId));
+    }
+
+    private static void collectNumbers(CategoryTree.Node node, Set<Integer> numbers) {
+        numbers.add(node.getLft());
+        numbers.add(node.getRgt());
+        node.getChildren().forEach(child -> collectNumbers(child, numbers));
+    }
+
+    private Long createBook(String name) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+        return book.getId();
+    }
+
+    private static List<Long> itemIds(List<Item> items) {
+        return items.stream().map(Item::getId).collect(Collectors.toList());
+    }
+}
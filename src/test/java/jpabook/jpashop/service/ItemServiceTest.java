@@ -0,0 +1,49 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.item.search.ItemSearchDto;
+import jpabook.jpashop.repository.item.search.ItemSearchResult;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class ItemServiceTest { // 검색 인덱스는 커밋 시 반영되므로 @Transactional을 걸지 않는다.
+    @Autowired
+    ItemService itemService;
+
+    @Test
+    public void 상품검색_앞부분_오타_수정반영() throws Exception {
+        // given
+        Book book = new Book();
+        book.setName("Hibernate Persistence");
+        book.setAuthor("Gavin Kingsley");
+        book.setIsbn("978-1932394153");
+        book.setPrice(30000);
+        book.setStockQuantity(10);
+        itemService.saveItem(book);
+
+        // when, then
+        assertTrue(searchIds("persist").contains(book.getId())); // 앞부분 일치
+        assertTrue(searchIds("hibernaet").contains(book.getId())); // 오타 허용
+        assertTrue(searchIds("kingsley").contains(book.getId())); // 하위 타입(Book) 필드
+        assertEquals(Integer.valueOf(30000), itemService.searchItems("persistence", 0, 10).getItems().get(0).getPrice()); // 결과는 인덱스에서 바로 꺼낸다.
+
+        itemService.updateItem(book.getId(), "Querydsl Persistence", 30000, 10);
+        assertFalse(searchIds("hibernate").contains(book.getId())); // 수정하면 인덱스도 바뀌어야 한다.
+        assertTrue(searchIds("querydsl").contains(book.getId()));
+    }
+
+    private List<Long> searchIds(String keyword) {
+        ItemSearchResult result = itemService.searchItems(keyword, 0, 10);
+        return result.getItems().stream().map(ItemSearchDto::getItemId).collect(Collectors.toList());
+    }
+}
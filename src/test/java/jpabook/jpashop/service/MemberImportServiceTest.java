@@ -0,0 +1,94 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import java.io.StringReader;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class MemberImportServiceTest { // 묶음마다 커밋하므로 @Transactional을 걸지 않는다. (이름이 겹치지 않게 prefix 사용)
+    @Autowired
+    MemberImportService memberImportService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Test
+    public void CSV_일괄등록_실패사유() throws Exception {
+        // given
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        Member existing = new Member();
+        existing.setName(prefix + "-기존");
+        memberService.join(existing);
+
+        String csv = "name,city,street,zipcode\n" +
+                prefix + "-a,서울,강가,111\n" +
+                "\"" + prefix + "-b, 주니어\",\"부산\",\"해운대 \"\"1\"\"\",222\n" +
+                ",서울,강가,333\n" + // 이름 없음
+                prefix + "-a,서울,강가,444\n" + // 파일 안 중복
+                prefix + "-기존,서울,강가,555\n"; // DB에 이미 있음
+
+        // when
+        MemberImportReport report = memberImportService.importMembers(new StringReader(csv), MemberImportService.Format.CSV);
+
+        // then
+        assertEquals(5, report.getTotalRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(3, report.getFailedRows());
+        assertEquals(List.of(4L, 5L, 6L), report.getErrors().stream()
+                .map(MemberImportReport.RowError::getLineNumber)
+                .sorted()
+                .collect(Collectors.toList()));
+        Member quoted = memberRepository.findByName(prefix + "-b, 주니어").get(0);
+        assertEquals("해운대 \"1\"", quoted.getAddress().getStreet());
+    }
+
+    @Test
+    public void CSV_헤더가_아니면_첫줄도_등록() throws Exception {
+        // given: 헤더 없이 name으로 시작하는 회원
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        String csv = "name" + prefix + ",서울,강가,111\n" +
+                "names-" + prefix + ",서울,강가,222\n";
+
+        // when
+        MemberImportReport report = memberImportService.importMembers(new StringReader(csv), MemberImportService.Format.CSV);
+
+        // then
+        assertEquals(2, report.getTotalRows());
+        assertEquals(2, report.getImportedRows());
+        assertEquals(1, memberRepository.findByName("name" + prefix).size());
+    }
+
+    @Test
+    public void NDJSON_일괄등록() throws Exception {
+        // given
+        String prefix = UUID.randomUUID().toString().substring(0, 8);
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 1200; i++) { // 묶음(500줄) 여러 개
+            ndjson.append("{\"name\":\"").append(prefix).append('-').append(i).append("\",\"city\":\"서울\"}\n");
+        }
+        ndjson.append("{not json}\n");
+
+        // when
+        MemberImportReport report = memberImportService.importMembers(new StringReader(ndjson.toString()), MemberImportService.Format.NDJSON);
+
+        // then
+        assertEquals(1200, report.getImportedRows());
+        assertEquals(1, report.getFailedRows());
+        assertEquals(1, memberRepository.findByName(prefix + "-1199").size());
+    }
+}
@@ -1,14 +1,21 @@
 package jpabook.jpashop.service;
 
+import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.member.query.MemberQueryDto;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.stream.Collectors;
+
 import static org.junit.Assert.*;
 
 @RunWith(SpringRunner.class)
@@ -21,6 +28,9 @@ public class MemberServiceTest {
     @Autowired
     MemberRepository memberRepository;
 
+    @Autowired
+    EntityManager em;
+
     @Test
     public void 회원가입() throws Exception {
         // given
@@ -56,4 +66,54 @@ public class MemberServiceTest {
         // then
         fail("예외가 발생해야 한다.");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void 필터에_없는_중복_회원_예외() throws Exception {
+        // given: bloom filter를 거치지 않고 저장된 회원 (다른 인스턴스에서 가입한 경우 등)
+        Member existing = new Member();
+        existing.setName("lee");
+        em.persist(existing);
+
+        Member member = new Member();
+        member.setName("lee");
+
+        // when
+        try {
+            memberService.join(member); // SELECT를 생략해도 unique 제약에서 막힌다.
+        } catch (IllegalStateException e) {
+            // then: 원래 예외(제약 위반)를 원인으로 남긴다.
+            assertTrue(e.getCause() instanceof DataIntegrityViolationException);
+            return;
+        }
+        fail("예외가 발생해야 한다.");
+    }
+
+    @Test
+    public void 회원목록_페이징_필드선택() throws Exception {
+        // given
+        Long firstId = null;
+        for (String name : new String[]{"page1", "page2", "page3"}) {
+            Member member = new Member();
+            member.setName(name);
+            member.setAddress(new Address("서울", "강가", "123"));
+            Long id = memberService.join(member);
+            firstId = firstId == null ? id : firstId;
+        }
+
+        // when
+        List<MemberQueryDto> page1 = memberService.findMemberPage(List.of("name"), firstId - 1, 2);
+        List<MemberQueryDto> page2 = memberService.findMemberPage(List.of("name", "city"), page1.get(1).getMemberId(), 2);
+
+        // then
+        assertEquals(List.of("page1", "page2"), page1.stream().map(MemberQueryDto::getName).collect(Collectors.toList()));
+        assertNull(page1.get(0).getId()); // 요청하지 않은 필드는 조회하지 않는다.
+        assertNull(page1.get(0).getCity());
+        assertEquals("page3", page2.get(0).getName());
+        assertEquals("서울", page2.get(0).getCity());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void 회원목록_없는_필드_예외() throws Exception {
+        memberService.findMemberPage(List.of("name", "password"), null, 10);
+    }
+}
@@ -0,0 +1,77 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class OrderCombinerTest { // DB 없이 묶음 처리 동작만 확인한다.
+
+    @Test
+    public void 같은상품_동시주문_묶음처리() throws Exception {
+        // given
+        int stockQuantity = 100;
+        AtomicInteger stock = new AtomicInteger(stockQuantity);
+        AtomicInteger transactions = new AtomicInteger();
+        AtomicLong orderIds = new AtomicLong();
+        DistributionSummary batchSizes = DistributionSummary.builder("test").register(new SimpleMeterRegistry());
+        OrderCombiner combiner = new OrderCombiner(20, 50, commands -> {
+            transactions.incrementAndGet(); // 묶음 1개 = 트랜잭션 1번
+            List<OrderOutcome> outcomes = new ArrayList<>();
+            for (OrderCommand command : commands) {
+                if (stock.get() < command.getCount()) {
+                    outcomes.add(OrderOutcome.failure(new NotEnoughStockException("need more stock")));
+                } else {
+                    stock.addAndGet(-command.getCount());
+                    outcomes.add(OrderOutcome.success(orderIds.incrementAndGet()));
+                }
+            }
+            return outcomes;
+        }, batchSizes);
+
+        int threadCount = 64;
+        int requestCount = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(requestCount);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger notEnoughStock = new AtomicInteger();
+
+        // when
+        for (int i = 0; i < requestCount; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await();
+                    combiner.order(new OrderCommand(1L, 1L, 1));
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    notEnoughStock.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // then
+        assertEquals(stockQuantity, success.get()); // 재고만큼만 성공해야 한다.
+        assertEquals(requestCount - stockQuantity, notEnoughStock.get()); // 나머지는 각자 재고 부족 예외를 받는다.
+        assertEquals(requestCount, (long) batchSizes.totalAmount()); // 모든 주문이 한 번씩만 처리되어야 한다.
+        assertTrue(transactions.get() < requestCount); // 동시 주문은 묶여서 트랜잭션 수가 주문 수보다 적어야 한다.
+    }
+}
@@ -0,0 +1,102 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OrderFacadeTest { // DB 없이 재시도 동작만 확인한다.
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void 충돌_N번_후_성공() throws Exception {
+        // given
+        OrderFacade facade = facade(5, 1, 2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        Long result = facade.executeWithRetry("order", () -> {
+            if (attempts.incrementAndGet() <= 3) {
+                throw new OptimisticLockingFailureException("충돌");
+            }
+            return 1L;
+        });
+
+        // then
+        assertEquals(Long.valueOf(1L), result);
+        assertEquals(4, attempts.get());
+        assertEquals(3.0, retryCount("order.optimistic.lock.retry"), 0);
+        assertEquals(0.0, retryCount("order.optimistic.lock.exhausted"), 0);
+    }
+
+    @Test
+    public void 재시도_소진() throws Exception {
+        // given
+        OrderFacade facade = facade(3, 1, 2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        try {
+            facade.executeWithRetry("order", () -> {
+                attempts.incrementAndGet();
+                throw new OptimisticLockingFailureException("충돌");
+            });
+            fail("재시도를 다 쓰면 마지막 예외가 나가야 한다.");
+        } catch (OptimisticLockingFailureException e) {
+            // expected
+        }
+
+        // then
+        assertEquals(3, attempts.get()); // max-attempts까지만
+        assertEquals(2.0, retryCount("order.optimistic.lock.retry"), 0);
+        assertEquals(1.0, retryCount("order.optimistic.lock.exhausted"), 0);
+    }
+
+    @Test
+    public void 다른_예외는_재시도하지_않음() throws Exception {
+        // given
+        OrderFacade facade = facade(5, 1, 2);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // when
+        try {
+            facade.executeWithRetry("order", () -> {
+                attempts.incrementAndGet();
+                throw new IllegalStateException("재고 부족 등");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // then
+        assertEquals(1, attempts.get());
+        assertEquals(0.0, retryCount("order.optimistic.lock.retry"), 0);
+    }
+
+    @Test
+    public void 대기시간은_상한을_넘지_않음() throws Exception {
+        // given
+        OrderFacade facade = facade(1000, 20, 200);
+
+        // then
+        assertEquals(20, facade.backoffOf(1));
+        assertEquals(40, facade.backoffOf(2));
+        assertEquals(160, facade.backoffOf(4));
+        assertEquals(200, facade.backoffOf(5));
+        assertEquals(200, facade.backoffOf(64)); // shift로 계산하면 overflow 되는 구간
+        assertEquals(200, facade.backoffOf(1000));
+        assertEquals(Long.MAX_VALUE, facade(1000, Long.MAX_VALUE / 3, Long.MAX_VALUE).backoffOf(100));
+    }
+
+    private OrderFacade facade(int maxAttempts, long backoffMillis, long maxBackoffMillis) {
+        return new OrderFacade(null, meterRegistry, maxAttempts, backoffMillis, maxBackoffMillis, false, 5, 100);
+    }
+
+    private double retryCount(String name) {
+        return meterRegistry.counter(name, "operation", "order").count();
+    }
+}
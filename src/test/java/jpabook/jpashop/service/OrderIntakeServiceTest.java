@@ -0,0 +1,83 @@
+package jpabook.jpashop.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jpabook.jpashop.exception.OrderQueueFullException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class OrderIntakeServiceTest { // DB 없이 대기열 동작만 확인한다. (OrderService는 mock)
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderFacade orderFacade = new OrderFacade(orderService, new SimpleMeterRegistry(), 1, 1, 1, false, 5, 100);
+
+    @Test
+    public void 대기열이_가득_차면_거절() throws Exception {
+        // given: 워커를 시작하지 않아서 꺼내 가지 않는다.
+        OrderIntakeService intakeService = intakeService(2);
+        intakeService.submit(new OrderCommand(1L, 1L, 1));
+        intakeService.submit(new OrderCommand(1L, 2L, 1));
+
+        // when, then: 기다리지 않고 바로 거절 (api는 429)
+        try {
+            intakeService.submit(new OrderCommand(1L, 3L, 1));
+            fail("대기열이 가득 차면 예외가 발생해야 한다.");
+        } catch (OrderQueueFullException e) {
+            assertEquals("주문 대기열이 가득 찼습니다. 잠시 후 다시 시도해주세요.", e.getMessage());
+        }
+    }
+
+    @Test
+    public void 종료할_때_남은_주문까지_처리() throws Exception {
+        // given: 워커 시작 전에 쌓인 주문
+        OrderIntakeService intakeService = intakeService(10);
+        when(orderService.orderEach(anyList())).thenAnswer(invocation -> {
+            List<OrderCommand> commands = invocation.getArgument(0);
+            return commands.stream()
+                    .map(command -> OrderOutcome.success(command.getItemId() * 100))
+                    .collect(Collectors.toList());
+        });
+        List<OrderTicket> tickets = new ArrayList<>();
+        for (long itemId = 5; itemId >= 1; itemId--) {
+            tickets.add(intakeService.submit(new OrderCommand(1L, itemId, 1)));
+        }
+
+        // when: 시작하자마자 종료
+        intakeService.start();
+        intakeService.stop();
+
+        // then: 상품 id로 정렬해서 처리해도 결과는 각자의 접수증으로
+        for (OrderTicket ticket : tickets) {
+            assertEquals(OrderTicket.Status.COMPLETED, ticket.getStatus());
+            assertEquals(Long.valueOf(ticket.getCommand().getItemId() * 100), ticket.getOrderId());
+            assertSame(ticket, intakeService.findTicket(ticket.getId()));
+        }
+    }
+
+    @Test
+    public void 처리_실패하면_접수증도_실패() throws Exception {
+        // given
+        OrderIntakeService intakeService = intakeService(10);
+        when(orderService.orderEach(anyList())).thenThrow(new IllegalStateException("DB 오류"));
+        OrderTicket ticket = intakeService.submit(new OrderCommand(1L, 1L, 1));
+
+        // when
+        intakeService.start();
+        intakeService.stop();
+
+        // then
+        assertEquals(OrderTicket.Status.FAILED, ticket.getStatus());
+        assertNull(ticket.getOrderId());
+        assertNotNull(ticket.getFailureMessage());
+    }
+
+    private OrderIntakeService intakeService(int queueCapacity) {
+        return new OrderIntakeService(orderService, orderFacade, new SimpleMeterRegistry(), queueCapacity, 2, 100, 600000);
+    }
+}
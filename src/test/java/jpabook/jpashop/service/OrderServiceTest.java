@@ -4,6 +4,8 @@ import jpabook.jpashop.domain.*;
 import jpabook.jpashop.domain.item.Book;
 import jpabook.jpashop.exception.NotEnoughStockException;
 import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import org.hibernate.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,8 +15,11 @@ import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 @RunWith(SpringRunner.class)
@@ -69,6 +74,57 @@ public class OrderServiceTest {
         assertEquals(10, item.getStockQuantity()); // 주문이 취소된 상품은 그만큼 재고가 증가해야 한다.
     }
     
+    @Test
+    public void 주문요약_생성_취소() throws Exception {
+        // given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+        Long orderId = orderService.order(member.getId(), item.getId(), 3);
+
+        // when
+        orderService.cancelOrder(orderId);
+        em.flush();
+        em.clear();
+
+        // then
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getName());
+        orderSearch.setOrderStatus(OrderStatus.CANCEL);
+        List<OrderSummary> summaries = orderService.findOrderSummaries(orderSearch, null, 10);
+        assertEquals(1, summaries.size());
+        assertEquals(orderId, summaries.get(0).getOrderId());
+        assertEquals(3, summaries.get(0).getItemCount());
+        assertEquals(30000, summaries.get(0).getTotalPrice()); // 주문 요약에 총 주문 가격이 저장되어 있어야 한다.
+    }
+
+    @Test
+    public void 주문목록_페이징() throws Exception {
+        // given
+        Member member = createMember();
+        Item item = createBook("시골 JPA", 10000, 10);
+        Long first = orderService.order(member.getId(), item.getId(), 1);
+        Long second = orderService.order(member.getId(), item.getId(), 2);
+        Long third = orderService.order(member.getId(), item.getId(), 3);
+        em.flush();
+        em.clear();
+
+        OrderSearch orderSearch = new OrderSearch();
+        orderSearch.setMemberName(member.getName());
+
+        // when
+        List<OrderSummary> page1 = orderService.findOrderList(orderSearch, null, 2);
+        List<OrderSummary> page2 = orderService.findOrderList(orderSearch, page1.get(1).getOrderId(), 2);
+
+        // then
+        assertEquals(List.of(third, second), List.of(page1.get(0).getOrderId(), page1.get(1).getOrderId())); // 최신 주문부터
+        assertEquals(1, page2.size());
+        assertEquals(first, page2.get(0).getOrderId());
+        assertEquals("시골 JPA", page1.get(0).getItemName()); // 대표상품
+        assertEquals(3, page1.get(0).getCount());
+        assertEquals(10000, page1.get(0).getOrderPrice());
+        assertEquals(member.getName(), page1.get(0).getMemberName());
+    }
+
     @Test(expected = NotEnoughStockException.class)
     public void 상품주문_재고수량초과() throws Exception {
         // given
@@ -84,6 +140,56 @@ public class OrderServiceTest {
         fail("재고 수량 부족 예외가 발생해야 한다.");
     }
 
+    @Test
+    public void 대량주문() throws Exception {
+        // given
+        Member member = createMember();
+        Book book1 = createBook("시골 JPA", 10000, 200);
+        Book book2 = createBook("시골 Spring", 20000, 200);
+
+        List<OrderCommand> commands = new ArrayList<>();
+        for (int i = 0; i < 250; i++) { // flush + clear 묶음(100건) 여러 개
+            commands.add(new OrderCommand(member.getId(), i % 2 == 0 ? book1.getId() : book2.getId(), 1));
+        }
+
+        // when
+        List<Long> orderIds = orderService.orderAll(commands);
+
+        // then
+        assertTrue(em.unwrap(Session.class).getStatistics().getEntityCount() < 100); // 묶음마다 비우므로 주문 수만큼 쌓이지 않는다.
+        em.flush();
+        em.clear();
+        assertEquals(250, orderIds.size()); // 요청한 만큼 주문이 생성되어야 한다.
+        assertEquals(20000, orderRepository.findOne(orderIds.get(201)).getTotalPrice()); // 요청 순서대로 id가 반환되어야 한다.
+        assertEquals(75, em.find(Book.class, book1.getId()).getStockQuantity()); // 묶음이 바뀌어도 앞 묶음에서 차감한 재고를 이어서 차감
+        assertEquals(75, em.find(Book.class, book2.getId()).getStockQuantity());
+    }
+
+    @Test
+    public void 여러건주문_실패격리() throws Exception {
+        // given
+        Member member = createMember();
+        Book book = createBook("시골 JPA", 10000, 3);
+
+        List<OrderCommand> commands = new ArrayList<>();
+        commands.add(new OrderCommand(member.getId(), book.getId(), 2));
+        commands.add(new OrderCommand(member.getId(), book.getId(), 2)); // 재고 부족
+        commands.add(new OrderCommand(member.getId(), -1L, 1)); // 없는 상품
+        commands.add(new OrderCommand(member.getId(), book.getId(), 1));
+
+        // when
+        List<OrderOutcome> outcomes = orderService.orderEach(commands);
+        em.flush();
+        em.clear();
+
+        // then
+        assertTrue(outcomes.get(0).isSuccess());
+        assertTrue(outcomes.get(1).getFailure() instanceof NotEnoughStockException); // 실패한 주문만 결과에 실패로 남는다.
+        assertTrue(outcomes.get(2).getFailure() instanceof IllegalArgumentException);
+        assertTrue(outcomes.get(3).isSuccess()); // 앞의 실패가 뒤의 주문을 롤백시키지 않는다.
+        assertEquals(0, em.find(Book.class, book.getId()).getStockQuantity());
+    }
+
     private Book createBook(String name, int price, int stockQuantity) {
         Book book = new Book();
         book.setName(name);
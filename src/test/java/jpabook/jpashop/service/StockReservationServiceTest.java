@@ -0,0 +1,158 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughStockException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+@RunWith(SpringRunner.class)
+@SpringBootTest(properties = "jpashop.stock.reservation.enabled=true")
+public class StockReservationServiceTest { // 스레드마다 각자 커밋해야 하므로 @Transactional을 걸지 않는다.
+    @Autowired
+    StockReservationService stockReservationService;
+
+    @Autowired
+    ItemService itemService;
+
+    @Autowired
+    OrderService orderService;
+
+    @Autowired
+    MemberService memberService;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 동시주문_초과판매_없음() throws Exception {
+        // given
+        int stockQuantity = 100;
+        Book book = createBook("동시성 JPA", 10000, stockQuantity);
+        Long memberId = createMember();
+
+        int threadCount = 32;
+        int requestCount = 1000;
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(requestCount);
+        AtomicInteger success = new AtomicInteger();
+        AtomicInteger notEnoughStock = new AtomicInteger();
+
+        // when
+        for (int i = 0; i < requestCount; i++) {
+            executor.submit(() -> {
+                try {
+                    start.await(); // 최대한 동시에 출발
+                    orderService.order(memberId, book.getId(), 1); // 주문 트랜잭션 안에서 선점 -> 커밋 시 반영 대상
+                    success.incrementAndGet();
+                } catch (NotEnoughStockException e) {
+                    notEnoughStock.incrementAndGet();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        start.countDown();
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        stockReservationService.flush();
+
+        // then
+        assertEquals(stockQuantity, success.get()); // 재고만큼만 성공해야 한다.
+        assertEquals(requestCount - stockQuantity, notEnoughStock.get()); // 나머지는 재고 부족 예외
+        assertEquals(Integer.valueOf(0), stockReservationService.getAvailable(book.getId()));
+        assertEquals(0, itemService.findOne(book.getId()).getStockQuantity()); // DB에도 차감된 수량이 반영되어야 한다.
+    }
+
+    @Test
+    public void 선점_후_재고수정_후_커밋() throws Exception {
+        // given
+        Book book = createBook("재고수정 JPA", 10000, 10);
+        Long memberId = createMember();
+        CountDownLatch reserved = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        // when
+        // 1. 주문 트랜잭션이 재고 3개를 선점하고 커밋 전에 멈춘다.
+        Future<Long> order = executor.submit(() -> new TransactionTemplate(transactionManager).execute(status -> {
+            Long orderId = orderService.order(memberId, book.getId(), 3);
+            reserved.countDown();
+            try {
+                updated.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return orderId;
+        }));
+        assertTrue(reserved.await(10, TimeUnit.SECONDS));
+        // 2. 그 사이 관리자가 재고를 50개로 수정하고 커밋
+        itemService.updateItem(book.getId(), book.getName(), book.getPrice(), 50);
+        // 3. 주문 커밋
+        updated.countDown();
+        assertNotNull(order.get(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        stockReservationService.flush();
+
+        // then
+        assertEquals(Integer.valueOf(47), stockReservationService.getAvailable(book.getId())); // 선점한 3개는 그대로
+        assertEquals(47, itemService.findOne(book.getId()).getStockQuantity()); // 나중에 커밋된 주문도 DB에 반영된다.
+    }
+
+    @Test
+    public void 재고감소_롤백되면_되돌림() throws Exception {
+        // given
+        Book book = createBook("롤백 JPA", 10000, 10);
+        orderService.order(createMember(), book.getId(), 1);
+        stockReservationService.flush(); // DB 재고 9
+
+        // when
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                itemService.updateItem(book.getId(), book.getName(), book.getPrice(), 2);
+                assertEquals(Integer.valueOf(2), stockReservationService.getAvailable(book.getId())); // 줄이는 건 커밋 전부터 적용
+                throw new IllegalStateException("rollback");
+            });
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // then
+        assertEquals(Integer.valueOf(9), stockReservationService.getAvailable(book.getId()));
+    }
+
+    private Long createMember() {
+        Member member = new Member();
+        member.setName("재고 " + UUID.randomUUID());
+        return memberService.join(member);
+    }
+
+    private Book createBook(String name, int price, int stockQuantity) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stockQuantity);
+        itemService.saveItem(book);
+        return book;
+    }
+}